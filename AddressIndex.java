@@ -0,0 +1,96 @@
+/**
+ * Represents a hash table that maps memory addresses to values.
+ * The addresses are kept in a primitive int array (open addressing with linear
+ * probing), so looking up an address neither scans a list nor boxes the key.
+ * Addresses must be non-negative.
+ */
+public class AddressIndex<V> extends AddressTable {
+
+    private Object[] values; // values[i] is the value of the address in slot i
+
+    /**
+     * Constructs an empty index.
+     */
+    public AddressIndex() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty index that can hold the given number of addresses before it grows.
+     * @param expectedSize the expected number of addresses
+     */
+    public AddressIndex(int expectedSize) {
+        super(expectedSize);
+        values = new Object[capacity()];
+    }
+
+    /**
+     * Gets the value of the given address.
+     * @param address the address to look up
+     * @return the value of the address, or null if the address is not in this index
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int address) {
+        int i = find(address);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+     * Maps the given address to the given value, replacing its previous value, if any.
+     * @param address the address, which must not be negative
+     * @param value the value of the address
+     */
+    public void put(int address, V value) {
+        int i = insert(address); // may grow the values array, so it is called first
+        values[i] = value;
+    }
+
+    /**
+     * Removes the given address from this index.
+     * @param address the address to remove
+     * @return the value the address had, or null if the address was not in this index
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int address) {
+        int i = find(address);
+        if (i < 0) {
+            return null;
+        }
+        V value = (V) values[i];
+        removeSlot(i);
+        return value;
+    }
+
+    /**
+     * Returns the values of this index, in no particular order.
+     * @return a new list of the values
+     */
+    @SuppressWarnings("unchecked")
+    public java.util.ArrayList<V> values() {
+        java.util.ArrayList<V> list = new java.util.ArrayList<>(getSize());
+        for (int i = 0; i < values.length; i++) {
+            if (isUsed(i)) {
+                list.add((V) values[i]);
+            }
+        }
+        return list;
+    }
+
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    void clearValue(int slot) {
+        values[slot] = null;
+    }
+
+    void resize(int oldCapacity, int[] newSlots) {
+        Object[] oldValues = values;
+        values = new Object[capacity()];
+        for (int i = 0; i < oldCapacity; i++) {
+            if (newSlots[i] >= 0) {
+                values[newSlots[i]] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Represents the keys of a hash table that maps memory addresses to values.
+ * The addresses are kept in a primitive int array (open addressing with linear
+ * probing), so looking up an address neither scans a list nor boxes the key.
+ * Subclasses keep the values in an array parallel to the keys, and move a value
+ * whenever this class moves its key. Addresses must be non-negative.
+ */
+abstract class AddressTable {
+
+    private static final int EMPTY = -1;  // marks an unused slot in the keys array
+
+    private int[] keys;      // the addresses, or EMPTY
+    private int size;        // number of addresses in this table
+
+    /**
+     * Constructs an empty table that can hold the given number of addresses before it grows.
+     * @param expectedSize the expected number of addresses
+     */
+    AddressTable(int expectedSize) {
+        int capacity = 16;
+        while (capacity < (long) expectedSize * 2 && capacity < 1 << 30) {
+            capacity <<= 1;
+        }
+        keys = newKeys(capacity);
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        java.util.Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+
+    /**
+     * Gets the number of addresses in this table
+     * @return the number of addresses
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of slots of this table, which is the length of the values array.
+     */
+    final int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the slot in which the probing for the given address starts.
+     */
+    private int slotOf(int address) {
+        return (address * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(keys.length) + 1);
+    }
+
+    /**
+     * Returns the slot of the given address, or -1 if the address is not in this table.
+     */
+    final int find(int address) {
+        int mask = keys.length - 1;
+        for (int i = slotOf(address); keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == address) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of the given address, adding the address to this table if it is not
+     * in it yet. The table grows first if it would become more than half full.
+     */
+    final int insert(int address) {
+        if (address < 0) {
+            throw new IllegalArgumentException("address must not be negative");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = slotOf(address);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == address) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = address;
+        size++;
+        return i;
+    }
+
+    /**
+     * Removes the address in the given slot from this table.
+     */
+    final void removeSlot(int i) {
+        // Shifts back the entries that follow in the probe sequence, so that no
+        // lookup stops early at the slot that has just been emptied
+        int mask = keys.length - 1;
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = slotOf(keys[j]);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                moveValue(j, hole);
+                hole = j;
+            }
+        }
+        keys[hole] = EMPTY;
+        clearValue(hole);
+        size--;
+    }
+
+    /**
+     * Checks if the given slot holds an address.
+     */
+    final boolean isUsed(int i) {
+        return keys[i] != EMPTY;
+    }
+
+    /**
+     * Doubles the capacity of this table, and reinserts all its addresses.
+     */
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] newSlots = new int[oldKeys.length];
+        keys = newKeys(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slotOf(oldKeys[i]);
+                while (keys[j] != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                newSlots[i] = j;
+            } else {
+                newSlots[i] = -1;
+            }
+        }
+        resize(oldKeys.length, newSlots);
+    }
+
+    /**
+     * Moves the value in slot from to slot to.
+     */
+    abstract void moveValue(int from, int to);
+
+    /**
+     * Clears the value in the given slot, which no longer holds an address.
+     */
+    abstract void clearValue(int slot);
+
+    /**
+     * Replaces the values array with one of the new capacity, in which the value of every
+     * old slot i is in slot newSlots[i]. newSlots[i] is -1 if old slot i was unused.
+     */
+    abstract void resize(int oldCapacity, int[] newSlots);
+}
@@ -0,0 +1,32 @@
+/**
+ * Represents the placement policies that a MemorySpace can use when it looks
+ * for a free block to satisfy a malloc request.
+ */
+public enum AllocationPolicy {
+    // Scans the freeList and takes the first block that is long enough (the default)
+    FIRST_FIT,
+
+    // Keeps the free blocks in power-of-two size classes, and takes a block
+    // from the smallest non-empty class that fits the request
+    SEGREGATED_FIT,
+
+    // Keeps the free blocks in a tree ordered by base address, merges a freed block with
+    // its neighbours immediately, and takes the fitting block with the lowest address
+    ADDRESS_ORDERED_FIT,
+
+    // Keeps the free blocks in a tree ordered by length, and takes the shortest block
+    // that fits
+    BEST_FIT,
+
+    // Scans the freeList like FIRST_FIT, but resumes from the block where the last
+    // successful allocation was made, wrapping around to the beginning of the list
+    NEXT_FIT,
+
+    // Scans the freeList like FIRST_FIT, but free inserts every block in address order,
+    // so the freeList is always sorted and defrag only has to merge adjacent blocks
+    SORTED_FIRST_FIT,
+
+    // Takes the same blocks as FIRST_FIT, but keeps the free blocks in an UnrolledLinkedList,
+    // so the scan reads contiguous arrays instead of following two pointers per block
+    UNROLLED_FIRST_FIT
+}
@@ -0,0 +1,144 @@
+/**
+ * Represents a managed memory space that behaves exactly like a first-fit MemorySpace,
+ * but keeps the metadata of its blocks in preallocated primitive arrays instead of in
+ * MemoryBlock and Node objects: its free list and allocated list are BlockArrayLists,
+ * whose slots are recycled, and the allocated blocks are found by address through an
+ * IntAddressIndex. Once the arrays are large enough, malloc and free do not create
+ * any Java objects.
+ */
+public class ArrayMemorySpace {
+
+    private static final int NONE = BlockArrayList.NONE;  // marks the end of a list
+
+    // The free list and the allocated list
+    private final BlockArrayList freeList;
+    private final BlockArrayList allocatedList;
+
+    // The slots of the allocated blocks in the allocatedList, by base address
+    private final IntAddressIndex allocatedIndex;
+
+    // A work array for defrag
+    private long[] sortBuffer;
+
+    /**
+     * Constructs a new managed memory space of a given maximal size.
+     * 
+     * @param maxSize
+     *            the size of the memory space to be managed
+     */
+    public ArrayMemorySpace(int maxSize) {
+        this(maxSize, 1024);
+    }
+
+    /**
+     * Constructs a new managed memory space of a given maximal size, with room for the
+     * given number of blocks before its arrays have to grow.
+     * 
+     * @param maxSize
+     *            the size of the memory space to be managed
+     * @param expectedBlocks
+     *            the expected maximal number of free and allocated blocks
+     */
+    public ArrayMemorySpace(int maxSize, int expectedBlocks) {
+        int capacity = Math.max(16, expectedBlocks);
+        freeList = new BlockArrayList(capacity);
+        allocatedList = new BlockArrayList(capacity);
+        allocatedIndex = new IntAddressIndex(capacity);
+        sortBuffer = new long[0];
+
+        freeList.addLast(0, maxSize);
+    }
+
+    /**
+     * Allocates a memory block of a requested length (in words), with the same first-fit
+     * placement as MemorySpace.malloc. Like MemorySpace.malloc, a length that is not
+     * positive cannot be allocated.
+     * 
+     * @param length
+     *        the length (in words) of the memory block that has to be allocated
+     * @return the base address of the allocated block, or -1 if unable to allocate
+     */
+    public int malloc(int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        for (int slot = freeList.firstSlot(); slot != NONE; slot = freeList.nextSlot(slot)) {
+            int blockLength = freeList.length(slot);
+            if (blockLength >= length) {
+                int baseAddress = freeList.baseAddress(slot);
+                allocatedIndex.put(baseAddress, allocatedList.addLast(baseAddress, length));
+
+                if (blockLength == length) {
+                    freeList.removeSlot(slot);
+                } else {
+                    freeList.set(slot, baseAddress + length, blockLength - length);
+                }
+                return baseAddress;
+            }
+        }
+        return -1; // Allocation failed
+    }
+
+    /**
+     * Frees the memory block whose base address equals the given address, moving it from
+     * the allocated list to the end of the free list, like MemorySpace.free.
+     * 
+     * @param address
+     *            the base address of the block to free
+     */
+    public void free(int address) {
+        if (allocatedList.getSize() == 0) {
+            throw new IllegalArgumentException("no blocks are allocated");
+        }
+        int slot = allocatedIndex.remove(address);
+        if (slot == IntAddressIndex.NONE) {
+            return; // Treat invalid address as a successful operation (no exception thrown)
+        }
+        freeList.addLast(address, allocatedList.length(slot));
+        allocatedList.removeSlot(slot);
+    }
+
+    /**
+     * Performs defragmentation of this memory space: the free blocks are sorted by base
+     * address and adjacent blocks are merged, like MemorySpace.defrag.
+     */
+    public void defrag() {
+        int size = freeList.getSize();
+        if (sortBuffer.length < size) {
+            sortBuffer = new long[size * 2];
+        }
+        // Sorts the free blocks by base address, by packing each base address and length into a long
+        int count = 0;
+        for (int slot = freeList.firstSlot(); slot != NONE; slot = freeList.nextSlot(slot)) {
+            sortBuffer[count++] = ((long) freeList.baseAddress(slot) << 32) | freeList.length(slot);
+        }
+        java.util.Arrays.sort(sortBuffer, 0, count);
+
+        // Merges adjacent blocks in place, and rebuilds the free list from the merged blocks
+        int merged = 0;
+        for (int i = 0; i < count; i++) {
+            long block = sortBuffer[i];
+            if (merged > 0) {
+                long previous = sortBuffer[merged - 1];
+                if ((previous >>> 32) + (int) previous == (block >>> 32)) {
+                    sortBuffer[merged - 1] = previous + (int) block;
+                    continue;
+                }
+            }
+            sortBuffer[merged++] = block;
+        }
+        freeList.clear();
+        for (int i = 0; i < merged; i++) {
+            freeList.addLast((int) (sortBuffer[i] >>> 32), (int) sortBuffer[i]);
+        }
+    }
+
+    /**
+     * A textual representation of the free list and the allocated list of this memory space,
+     * in the same format as MemorySpace.toString, for debugging purposes.
+     */
+    @Override
+    public String toString() {
+        return freeList.toString() + "\n" + allocatedList.toString();
+    }
+}
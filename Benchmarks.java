@@ -0,0 +1,311 @@
+/* This program measures the performance of the memory management system.
+ * Run it with the name of a benchmark, for example:
+ * 
+ *     java Benchmarks POLICIES 100000
+ * 
+ * The optional second argument is the number of operations (malloc or free) to perform.
+ */
+public class Benchmarks {
+
+    // POLICIES keeps at most this many blocks alive, in a memory space of MEMORY_WORDS words,
+    // so that the free lists that the policies scan stay bounded however long the run is
+    private static final int LIVE_LIMIT = 1000;
+    private static final int MEMORY_WORDS = 80 * LIVE_LIMIT;
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: java Benchmarks <POLICIES|FIRST_FIT_SCAN|CONCURRENT_LIST|DEFRAG_SORT|PARALLEL_DEFRAG> [operations]");
+            return;
+        }
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        switch (args[0]) {
+            case "POLICIES":
+                benchmarkPolicies(operations);
+                break;
+            case "FIRST_FIT_SCAN":
+                benchmarkFirstFitScan(args.length > 1 ? operations : 10000);
+                break;
+            case "CONCURRENT_LIST":
+                benchmarkConcurrentList(operations);
+                break;
+            case "DEFRAG_SORT":
+                if (args.length > 1) {
+                    benchmarkDefragSort(operations);
+                } else {
+                    benchmarkDefragSort(10000);
+                    benchmarkDefragSort(1000000);
+                    benchmarkDefragSort(10000000);
+                }
+                break;
+            case "PARALLEL_DEFRAG":
+                benchmarkParallelDefrag(operations);
+                break;
+            default:
+                System.out.println("Unknown benchmark: " + args[0]);
+        }
+    }
+
+    /**
+     * Runs the LinkedListTest workload, scaled up, on a memory space of every allocation
+     * policy: blocks of length (i + 2)^5 % 123 are allocated, and a pseudo-random live block
+     * is freed after every two allocations. Once LIVE_LIMIT blocks are alive, a block is
+     * freed instead of allocated, so the run settles into alternating mallocs and frees.
+     * The memory space has room for about 1.4 times the live blocks, and is defragmented
+     * when a malloc fails, which keeps the number of free blocks bounded too. Therefore the
+     * policies that scan the freeList take time linear in the number of operations, and
+     * every policy can be run with millions of operations.
+     */
+    private static void benchmarkPolicies(int operations) {
+        System.out.println("policy              total ms  malloc ms    mallocs    failed   defrags  fragmentation");
+        for (AllocationPolicy policy : AllocationPolicy.values()) {
+            runPolicy(policy, Math.min(operations, 20000), false); // warm-up
+            runPolicy(policy, operations, true);
+        }
+    }
+
+    private static void runPolicy(AllocationPolicy policy, int operations, boolean report) {
+        MemorySpace memory = new MemorySpace(MEMORY_WORDS, policy, DefragPolicy.ON_FAILURE);
+        int[] live = new int[LIVE_LIMIT];
+        int liveCount = 0;
+        int mallocs = 0;
+        int failures = 0;
+        long seed = 42;
+        long mallocNanos = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            if ((i % 3 != 2 || liveCount == 0) && liveCount < LIVE_LIMIT) {
+                int length = 1 + (int) Math.pow(i % 40 + 2, 5) % 123;
+                long mallocStart = System.nanoTime();
+                int address = memory.malloc(length);
+                mallocNanos += System.nanoTime() - mallocStart;
+                mallocs++;
+                if (address == -1) {
+                    failures++;
+                } else {
+                    live[liveCount++] = address;
+                }
+            } else {
+                seed = seed * 6364136223846793005L + 1442695040888963407L;
+                int victim = (int) ((seed >>> 33) % liveCount);
+                memory.free(live[victim]);
+                live[victim] = live[--liveCount];
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+        if (report) {
+            System.out.printf("%-20s %8d %10d %10d %9d %9d %14.3f%n", policy, millis, mallocNanos / 1000000,
+                    mallocs, failures, memory.getFailureDefrags(), memory.fragmentation());
+        }
+    }
+
+    /**
+     * Measures a first-fit scan over a free list of the given number of short blocks,
+     * which ends with the only block that fits, on LinkedList and on UnrolledLinkedList.
+     * The blocks are added in a shuffled order of base addresses, and the LinkedList nodes
+     * are created interleaved with other objects, as they are in a long-running memory space.
+     * Building the LinkedList takes time quadratic in the number of blocks, so the default
+     * is 10,000 blocks.
+     */
+    private static void benchmarkFirstFitScan(int blocks) {
+        LinkedList nodes = new LinkedList();
+        UnrolledLinkedList chunks = new UnrolledLinkedList();
+        java.util.ArrayList<Object> garbage = new java.util.ArrayList<>();
+        java.util.Random random = new java.util.Random(1);
+        for (int i = 0; i < blocks; i++) {
+            MemoryBlock block = new MemoryBlock(random.nextInt(Integer.MAX_VALUE), 1 + random.nextInt(10));
+            nodes.add(random.nextInt(nodes.getSize() + 1), block);
+            garbage.add(new int[random.nextInt(16)]);
+        }
+        ListIterator copies = nodes.iterator();
+        while (copies.hasNext()) {
+            chunks.addLast(copies.next());
+        }
+        nodes.addLast(new MemoryBlock(0, 100));
+        chunks.addLast(new MemoryBlock(0, 100));
+        garbage = null;
+
+        int scans = Math.max(10, 100000000 / blocks);
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            long found = 0;
+            for (int i = 0; i < scans; i++) {
+                ListIterator iterator = nodes.iterator();
+                int index = 0;
+                while (iterator.next().length < 100) {
+                    index++;
+                }
+                found += index;
+            }
+            long listNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < scans; i++) {
+                found -= chunks.firstFit(100);
+            }
+            long chunkNanos = System.nanoTime() - start;
+            if (round == 1) {
+                System.out.printf("%d blocks: LinkedList %.1f us/scan, UnrolledLinkedList %.1f us/scan (%.1fx)%s%n",
+                        blocks, listNanos / 1000.0 / scans, chunkNanos / 1000.0 / scans,
+                        (double) listNanos / chunkNanos, found == 0 ? "" : " MISMATCH");
+            }
+        }
+    }
+
+    /**
+     * Measures the throughput of addLast and remove, from 1, 2, 4 and 8 threads, on a
+     * ConcurrentBlockList and on a LinkedList guarded by a single lock. Each thread keeps
+     * up to 16 of its own blocks in the list, removing the oldest one after every add.
+     */
+    private static void benchmarkConcurrentList(int operations) {
+        System.out.println("threads   lock-free ops/ms   synchronized ops/ms");
+        for (int threads = 1; threads <= 8; threads *= 2) {
+            double lockFree = 0;
+            double synchronizedRate = 0;
+            for (int round = 0; round < 2; round++) {
+                ConcurrentBlockList concurrent = new ConcurrentBlockList();
+                LinkedList locked = new LinkedList();
+                lockFree = runThreads(threads, operations, (id, i) -> {
+                    concurrent.addLast(new MemoryBlock(id * operations + i, 1));
+                    if (i >= 16) {
+                        concurrent.remove(new MemoryBlock(id * operations + i - 16, 1));
+                    }
+                });
+                synchronizedRate = runThreads(threads, operations, (id, i) -> {
+                    synchronized (locked) {
+                        locked.addLast(new MemoryBlock(id * operations + i, 1));
+                        if (i >= 16) {
+                            locked.remove(new MemoryBlock(id * operations + i - 16, 1));
+                        }
+                    }
+                });
+            }
+            System.out.printf("%7d %18.0f %21.0f%n", threads, lockFree, synchronizedRate);
+        }
+    }
+
+    /**
+     * Represents one operation of a thread in a benchmark.
+     */
+    private interface ThreadOperation {
+        void run(int thread, int i);
+    }
+
+    /**
+     * Runs the given operation the given number of times in total, split between the given
+     * number of threads, and returns the throughput in operations per millisecond.
+     */
+    private static double runThreads(int threadCount, int operations, ThreadOperation operation) {
+        Thread[] threads = new Thread[threadCount];
+        int perThread = operations / threadCount;
+        long start = System.nanoTime();
+        for (int t = 0; t < threadCount; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    operation.run(id, i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return (double) perThread * threadCount * 1000000 / (System.nanoTime() - start);
+    }
+
+    /**
+     * Compares the two ways of sorting the given number of free blocks by base address, in
+     * defrag: sorting a list of MemoryBlock objects with a comparator, and radix sorting their
+     * base addresses and lengths as primitive arrays with BlockSorter. Only the radix sort is
+     * charged for copying the blocks into its arrays and back, so the comparison is conservative.
+     */
+    private static void benchmarkDefragSort(int blocks) {
+        MemoryBlock[] shuffled = new MemoryBlock[blocks];
+        for (int i = 0; i < blocks; i++) {
+            shuffled[i] = new MemoryBlock(i * 2, 1);
+        }
+        java.util.Random random = new java.util.Random(1);
+        for (int i = blocks - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            MemoryBlock swap = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = swap;
+        }
+        int rounds = Math.max(3, 10000000 / blocks);
+        long bestComparison = Long.MAX_VALUE;
+        long bestRadix = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            java.util.ArrayList<MemoryBlock> tempList = new java.util.ArrayList<>(blocks);
+            for (MemoryBlock block : shuffled) {
+                tempList.add(new MemoryBlock(block.baseAddress, block.length));
+            }
+            long start = System.nanoTime();
+            tempList.sort((block1, block2) -> Integer.compare(block1.baseAddress, block2.baseAddress));
+            bestComparison = Math.min(bestComparison, System.nanoTime() - start);
+
+            MemoryBlock[] freeBlocks = tempList.toArray(new MemoryBlock[0]);
+            for (int i = 0; i < blocks; i++) {
+                freeBlocks[i].baseAddress = shuffled[i].baseAddress;
+            }
+            tempList = null;
+            start = System.nanoTime();
+            int[] baseAddresses = new int[blocks];
+            int[] lengths = new int[blocks];
+            for (int i = 0; i < blocks; i++) {
+                baseAddresses[i] = freeBlocks[i].baseAddress;
+                lengths[i] = freeBlocks[i].length;
+            }
+            BlockSorter.sortByBaseAddress(baseAddresses, lengths, blocks);
+            for (int i = 0; i < blocks; i++) {
+                freeBlocks[i].baseAddress = baseAddresses[i];
+                freeBlocks[i].length = lengths[i];
+            }
+            bestRadix = Math.min(bestRadix, System.nanoTime() - start);
+        }
+        System.out.printf("%d blocks: comparison sort %.2f ms, radix sort %.2f ms (%.1fx)%n", blocks,
+                bestComparison / 1e6, bestRadix / 1e6, (double) bestComparison / bestRadix);
+    }
+
+    /**
+     * Compares defrag and parallelDefrag on memory spaces in which the given number of blocks
+     * were allocated, and then about two thirds of them were freed in a random order.
+     */
+    private static void benchmarkParallelDefrag(int blocks) {
+        for (int round = 0; round < 3; round++) {
+            long[] nanos = new long[2];
+            for (int variant = 0; variant < 2; variant++) {
+                MemorySpace memory = new MemorySpace(4 * blocks);
+                int[] addresses = new int[blocks];
+                for (int i = 0; i < blocks; i++) {
+                    addresses[i] = memory.malloc(1 + i % 3);
+                }
+                java.util.Random random = new java.util.Random(round);
+                for (int i = blocks - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int swap = addresses[i];
+                    addresses[i] = addresses[j];
+                    addresses[j] = swap;
+                }
+                for (int i = 0; i < blocks; i++) {
+                    if (i % 3 != 0) {
+                        memory.free(addresses[i]);
+                    }
+                }
+                long start = System.nanoTime();
+                if (variant == 0) {
+                    memory.defrag();
+                } else {
+                    memory.parallelDefrag();
+                }
+                nanos[variant] = System.nanoTime() - start;
+            }
+            if (round == 2) {
+                System.out.printf("%d blocks, parallelism %d: defrag %.1f ms, parallelDefrag %.1f ms%n", blocks,
+                        java.util.concurrent.ForkJoinPool.getCommonPoolParallelism(), nanos[0] / 1e6, nanos[1] / 1e6);
+            }
+        }
+    }
+}
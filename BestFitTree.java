@@ -0,0 +1,216 @@
+/**
+ * Represents the free blocks of a memory space, kept in a balanced binary search tree
+ * (a treap) ordered by length, with ties broken by base address. The smallest block
+ * that is long enough for a request (the best fit) is found in O(log n), without
+ * scanning the free blocks, and without allocating a key to search for.
+ */
+public class BestFitTree implements FreeBlockIndex {
+
+    /**
+     * Represents a node of the tree. Each node points to a free memory block.
+     */
+    private static class TreeNode {
+        MemoryBlock block;  // the free block, whose length and base address are the key of this node
+        int priority;       // the heap priority of this node, which keeps the tree balanced
+        TreeNode left;      // the subtree of the shorter blocks, or of equal length and lower addresses
+        TreeNode right;     // the subtree of the longer blocks, or of equal length and higher addresses
+
+        TreeNode(MemoryBlock block, int priority) {
+            this.block = block;
+            this.priority = priority;
+        }
+    }
+
+    private TreeNode root;  // the root of the tree, or null if the tree is empty
+    private int size;       // number of blocks in the tree
+    private int seed;       // state of the generator of node priorities
+
+    /**
+     * Constructs an empty tree.
+     */
+    public BestFitTree() {
+        root = null;
+        size = 0;
+        seed = 0x2545F491;
+    }
+
+    /**
+     * Gets the number of free blocks in the tree
+     * @return the number of blocks
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the next node priority (xorshift generator).
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * Compares the key (length, base address) with the key of the given block.
+     */
+    private static int compare(int length, int address, MemoryBlock block) {
+        return length != block.length
+                ? Integer.compare(length, block.length)
+                : Integer.compare(address, block.baseAddress);
+    }
+
+    private TreeNode rotateRight(TreeNode node) {
+        TreeNode left = node.left;
+        node.left = left.right;
+        left.right = node;
+        return left;
+    }
+
+    private TreeNode rotateLeft(TreeNode node) {
+        TreeNode right = node.right;
+        node.right = right.left;
+        right.left = node;
+        return right;
+    }
+
+    /**
+     * Inserts the given block into the subtree, and returns the new root of the subtree.
+     */
+    private TreeNode insert(TreeNode node, MemoryBlock block) {
+        if (node == null) {
+            size++;
+            return new TreeNode(block, nextPriority());
+        }
+        if (compare(block.length, block.baseAddress, node.block) < 0) {
+            node.left = insert(node.left, block);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, block);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Deletes the block with the given length and base address from the subtree, and
+     * returns the new root of the subtree.
+     */
+    private TreeNode delete(TreeNode node, int length, int address) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(length, address, node.block);
+        if (cmp < 0) {
+            node.left = delete(node.left, length, address);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, length, address);
+        } else if (node.left == null) {
+            size--;
+            return node.right;
+        } else if (node.right == null) {
+            size--;
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, length, address);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, length, address);
+        }
+        return node;
+    }
+
+    /**
+     * Removes the shortest free block whose length is at least the given length. Among
+     * blocks of that length, the one with the lowest base address is removed.
+     * @param length the requested length, in words
+     * @return the removed block, or null if no block is long enough
+     */
+    public MemoryBlock take(int length) {
+        // Every block that is long enough is at least as large as (length, any address),
+        // so the best fit is the leftmost of them
+        MemoryBlock block = null;
+        TreeNode current = root;
+        while (current != null) {
+            if (current.block.length >= length) {
+                block = current.block;
+                current = current.left;
+            } else {
+                current = current.right;
+            }
+        }
+        if (block != null) {
+            root = delete(root, block.length, block.baseAddress);
+        }
+        return block;
+    }
+
+    /**
+     * Adds the given free block to the tree.
+     * @param block the free block to add
+     */
+    public void add(MemoryBlock block) {
+        root = insert(root, block);
+    }
+
+    /**
+     * Gets the length of the longest free block, which is the rightmost block of the
+     * tree, in O(log n).
+     * @return the length of the longest block, or 0 if the tree is empty
+     */
+    public int largestLength() {
+        TreeNode current = root;
+        if (current == null) {
+            return 0;
+        }
+        while (current.right != null) {
+            current = current.right;
+        }
+        return current.block.length;
+    }
+
+    /**
+     * Merges adjacent free blocks.
+     */
+    public void defrag() {
+        java.util.ArrayList<MemoryBlock> tempList = new java.util.ArrayList<>(size);
+        collect(root, tempList);
+        root = null;
+        size = 0;
+        for (MemoryBlock block : FreeBlockIndex.coalesce(tempList)) {
+            add(block);
+        }
+    }
+
+    private void collect(TreeNode node, java.util.ArrayList<MemoryBlock> blocks) {
+        if (node != null) {
+            collect(node.left, blocks);
+            blocks.add(node.block);
+            collect(node.right, blocks);
+        }
+    }
+
+    /**
+     * Returns the free blocks, from the shortest to the longest.
+     * @return a new list containing the free blocks
+     */
+    public LinkedList toList() {
+        LinkedList list = new LinkedList();
+        addAll(root, list);
+        return list;
+    }
+
+    private void addAll(TreeNode node, LinkedList list) {
+        if (node != null) {
+            addAll(node.left, list);
+            list.addLast(node.block);
+            addAll(node.right, list);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/**
+ * Represents a list of memory blocks, stored as a struct of arrays: the base addresses,
+ * the lengths and the links of the blocks are kept in parallel int arrays, instead of in
+ * one MemoryBlock object and one Node object per block. A block occupies a slot, which is
+ * an index into these arrays. The slots of removed blocks form a stack, linked through
+ * the next array, from which new blocks take their slots.
+ * The list offers the same operations as LinkedList. Its getBlock and iterator create
+ * MemoryBlock copies of the stored blocks; the slot operations access them directly.
+ */
+public class BlockArrayList {
+
+    /** The slot that marks the end of the list */
+    public static final int NONE = -1;
+
+    private int[] baseAddresses;  // baseAddresses[s] is the base address of the block in slot s
+    private int[] lengths;        // lengths[s] is the length of the block in slot s
+    private int[] next;           // the next slot in the list, or in the stack of unused slots
+    private int[] prev;           // the previous slot in the list
+
+    private int first;        // the first slot of this list
+    private int last;         // the last slot of this list
+    private int size;         // number of blocks in this list
+    private int unusedSlots;  // the top of the stack of unused slots
+    private int slotCount;    // number of slots that have ever been used
+
+    /**
+     * Constructs a new list.
+     */
+    public BlockArrayList() {
+        this(16);
+    }
+
+    /**
+     * Constructs a new list with room for the given number of blocks before its arrays grow.
+     * @param capacity the initial number of slots
+     */
+    public BlockArrayList(int capacity) {
+        capacity = Math.max(1, capacity);
+        baseAddresses = new int[capacity];
+        lengths = new int[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Removes all the blocks of this list. All the slots become unused.
+     */
+    public void clear() {
+        first = NONE;
+        last = NONE;
+        size = 0;
+        unusedSlots = NONE;
+        slotCount = 0;
+    }
+
+    /**
+     * Gets the current size of the list
+     * @return The size of the list.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    // Slot operations
+
+    /**
+     * Gets the first slot of this list
+     * @return the first slot, or NONE if the list is empty
+     */
+    public int firstSlot() {
+        return first;
+    }
+
+    /**
+     * Gets the slot that follows the given slot in this list
+     * @param slot a slot of this list
+     * @return the next slot, or NONE if the given slot is the last one
+     */
+    public int nextSlot(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * Gets the base address of the block in the given slot
+     * @param slot a slot of this list
+     * @return the base address of the block
+     */
+    public int baseAddress(int slot) {
+        return baseAddresses[slot];
+    }
+
+    /**
+     * Gets the length of the block in the given slot
+     * @param slot a slot of this list
+     * @return the length of the block
+     */
+    public int length(int slot) {
+        return lengths[slot];
+    }
+
+    /**
+     * Sets the base address and the length of the block in the given slot
+     * @param slot a slot of this list
+     * @param baseAddress the new base address of the block
+     * @param length the new length of the block
+     */
+    public void set(int slot, int baseAddress, int length) {
+        baseAddresses[slot] = baseAddress;
+        lengths[slot] = length;
+    }
+
+    /**
+     * Returns an unused slot holding the given block. A slot is taken from the stack of
+     * unused slots if possible, and the arrays grow only if all their slots are in use.
+     */
+    private int newSlot(int baseAddress, int length) {
+        int slot;
+        if (unusedSlots != NONE) {
+            slot = unusedSlots;
+            unusedSlots = next[slot];
+        } else {
+            if (slotCount == baseAddresses.length) {
+                int capacity = slotCount * 2;
+                baseAddresses = java.util.Arrays.copyOf(baseAddresses, capacity);
+                lengths = java.util.Arrays.copyOf(lengths, capacity);
+                next = java.util.Arrays.copyOf(next, capacity);
+                prev = java.util.Arrays.copyOf(prev, capacity);
+            }
+            slot = slotCount++;
+        }
+        set(slot, baseAddress, length);
+        return slot;
+    }
+
+    /**
+     * Adds a block with the given base address and length to the beginning of the list.
+     * @param baseAddress the base address of the block
+     * @param length the length of the block
+     * @return the slot of the added block
+     */
+    public int addFirst(int baseAddress, int length) {
+        int slot = newSlot(baseAddress, length);
+        prev[slot] = NONE;
+        next[slot] = first;
+        if (first == NONE) {
+            last = slot;
+        } else {
+            prev[first] = slot;
+        }
+        first = slot;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Adds a block with the given base address and length to the end of the list.
+     * @param baseAddress the base address of the block
+     * @param length the length of the block
+     * @return the slot of the added block
+     */
+    public int addLast(int baseAddress, int length) {
+        int slot = newSlot(baseAddress, length);
+        next[slot] = NONE;
+        prev[slot] = last;
+        if (last == NONE) {
+            first = slot;
+        } else {
+            next[last] = slot;
+        }
+        last = slot;
+        size++;
+        return slot;
+    }
+
+    /**
+     * Removes the block in the given slot from the list, in constant time, and makes the
+     * slot unused.
+     * @param slot a slot of this list
+     */
+    public void removeSlot(int slot) {
+        if (prev[slot] == NONE) {
+            first = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            last = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        next[slot] = unusedSlots;
+        unusedSlots = slot;
+        size--;
+    }
+
+    /**
+     * Gets the slot located at the given index in this list, walking from the closer end.
+     * @param index the index of the slot, between 0 and size
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     * @return the slot at the given index
+     */
+    public int getSlot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        int slot;
+        if (index < size / 2) {
+            slot = first;
+            for (int i = 0; i < index; i++) {
+                slot = next[slot];
+            }
+        } else {
+            slot = last;
+            for (int i = size - 1; i > index; i--) {
+                slot = prev[slot];
+            }
+        }
+        return slot;
+    }
+
+    // LinkedList operations
+
+    /**
+     * Gets a copy of the memory block located at the given index in this list.
+     * @param index the index of the block
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     * @return a new memory block with the base address and length of the block at the given index
+     */
+    public MemoryBlock getBlock(int index) {
+        int slot = getSlot(index);
+        return new MemoryBlock(baseAddresses[slot], lengths[slot]);
+    }
+
+    /**
+     * Finds the index of the block that equals the given memory block.
+     * @param block the memory block to locate
+     * @return the index of the equal block, or -1 if not found
+     */
+    public int indexOf(MemoryBlock block) {
+        int index = 0;
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            if (baseAddresses[slot] == block.baseAddress && lengths[slot] == block.length) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the specified memory block to the beginning of the list.
+     * @param block the memory block to add
+     */
+    public void addFirst(MemoryBlock block) {
+        addFirst(block.baseAddress, block.length);
+    }
+
+    /**
+     * Adds the specified memory block to the end of the list.
+     * @param block the memory block to add
+     */
+    public void addLast(MemoryBlock block) {
+        addLast(block.baseAddress, block.length);
+    }
+
+    /**
+     * Inserts the specified memory block at the specified index.
+     * @param index the position to insert the block
+     * @param block the memory block to insert
+     */
+    public void add(int index, MemoryBlock block) {
+        if (index < 0 || index > size) {
+            throw new IllegalArgumentException("Index out of bounds");
+        }
+        if (index == 0) {
+            addFirst(block);
+        } else if (index == size) {
+            addLast(block);
+        } else {
+            int following = getSlot(index);
+            int slot = newSlot(block.baseAddress, block.length);
+            prev[slot] = prev[following];
+            next[slot] = following;
+            next[prev[following]] = slot;
+            prev[following] = slot;
+            size++;
+        }
+    }
+
+    /**
+     * Removes the block at the specified index from the list.
+     * @param index the index of the block to remove
+     */
+    public void remove(int index) {
+        removeSlot(getSlot(index));
+    }
+
+    /**
+     * Removes the block that equals the specified memory block from the list.
+     * @param block the memory block to remove
+     */
+    public void remove(MemoryBlock block) {
+        int slot = first;
+        while (slot != NONE && (baseAddresses[slot] != block.baseAddress || lengths[slot] != block.length)) {
+            slot = next[slot];
+        }
+        if (slot == NONE) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        removeSlot(slot);
+    }
+
+    /**
+     * A textual representation of this list, in the same format as LinkedList.toString.
+     * @return a string representing the list
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            s.append('(').append(baseAddresses[slot]).append(" , ").append(lengths[slot]).append(") ");
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns an iterator over copies of the blocks in this list, in proper sequence.
+     * @return a ListIterator over the blocks in this list
+     */
+    public ListIterator iterator() {
+        return new BlockIterator();
+    }
+
+    /**
+     * Represents an iterator of this list, which keeps its cursor as a slot.
+     */
+    private class BlockIterator extends ListIterator {
+        private int slot = first;
+
+        BlockIterator() {
+            super((Node) null);
+        }
+
+        public boolean hasNext() {
+            return slot != NONE;
+        }
+
+        public MemoryBlock next() {
+            MemoryBlock block = new MemoryBlock(baseAddresses[slot], lengths[slot]);
+            slot = next[slot];
+            return block;
+        }
+    }
+}
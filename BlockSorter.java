@@ -0,0 +1,71 @@
+/**
+ * Sorts memory blocks by base address, represented as parallel arrays of base addresses
+ * and lengths rather than as MemoryBlock objects. The sort is an LSD radix sort with
+ * 8-bit digits: each pass counts the digits of the keys, and then moves every key and
+ * its length to its position in a second pair of arrays. It takes O(n) time and never
+ * compares or dereferences blocks, which makes it much faster than a comparison sort on
+ * MemoryBlock objects when there are many blocks.
+ */
+public final class BlockSorter {
+
+    private static final int DIGIT_BITS = 8;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int PASSES = Integer.SIZE / DIGIT_BITS;
+
+    private BlockSorter() {
+    }
+
+    /**
+     * Sorts the first size base addresses in ascending order, and moves every length along
+     * with its base address. The sort is stable.
+     * @param baseAddresses the base addresses of the blocks, which are the sort keys
+     * @param lengths the lengths of the blocks
+     * @param size the number of blocks to sort
+     */
+    public static void sortByBaseAddress(int[] baseAddresses, int[] lengths, int size) {
+        if (size < 2) {
+            return;
+        }
+        int[] keys = baseAddresses;
+        int[] values = lengths;
+        int[] otherKeys = new int[size];
+        int[] otherValues = new int[size];
+        int[] counts = new int[RADIX];
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * DIGIT_BITS;
+            // The last digit holds the sign bit, which is flipped so negative keys come first
+            int flip = (pass == PASSES - 1) ? RADIX >>> 1 : 0;
+            java.util.Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[((keys[i] >>> shift) & (RADIX - 1)) ^ flip]++;
+            }
+            // Skip the pass when all the keys have the same digit, which is common for the
+            // high digits of addresses in a small memory space
+            int digit = ((keys[0] >>> shift) & (RADIX - 1)) ^ flip;
+            if (counts[digit] == size) {
+                continue;
+            }
+            int position = 0;
+            for (int d = 0; d < RADIX; d++) {
+                int count = counts[d];
+                counts[d] = position;
+                position += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int target = counts[((keys[i] >>> shift) & (RADIX - 1)) ^ flip]++;
+                otherKeys[target] = keys[i];
+                otherValues[target] = values[i];
+            }
+            int[] swap = keys;
+            keys = otherKeys;
+            otherKeys = swap;
+            swap = values;
+            values = otherValues;
+            otherValues = swap;
+        }
+        if (keys != baseAddresses) {
+            System.arraycopy(keys, 0, baseAddresses, 0, size);
+            System.arraycopy(values, 0, lengths, 0, size);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Represents a managed memory space that allocates blocks with the binary buddy system.
+ * Every block has a length which is a power of two, and a base address which is a
+ * multiple of its length. Requests are rounded up to the next power of two. A block of
+ * length 2^k is split into two "buddies" of length 2^(k-1), and the buddy of a block is
+ * found by flipping a single bit of its base address (baseAddress XOR length). When a
+ * block is freed it is immediately merged with its buddy, if the buddy is free, so the
+ * memory space never needs an explicit defragmentation.
+ */
+public class BuddyMemorySpace {
+
+    private static final int ORDERS = 32;
+
+    // freeLists[k] holds free blocks of length 2^k. A block may stay in its list after it
+    // was merged or taken; such a stale entry is recognized, and dropped, because it is no
+    // longer the block that freeBlocks maps its base address to.
+    private final LinkedList[] freeLists;
+
+    // The free blocks that are presently valid, by base address
+    private final AddressIndex<MemoryBlock> freeBlocks;
+
+    // The allocated blocks, by base address
+    private final AddressIndex<MemoryBlock> allocatedBlocks;
+
+    // The total length of the free blocks
+    private int freeWords;
+
+    /**
+     * Constructs a new buddy memory space of a given maximal size. If the size is not a
+     * power of two, the memory is initially divided into the aligned power-of-two blocks
+     * that sum up to it.
+     * 
+     * @param maxSize
+     *            the size of the memory space to be managed
+     */
+    public BuddyMemorySpace(int maxSize) {
+        freeLists = new LinkedList[ORDERS];
+        for (int k = 0; k < ORDERS; k++) {
+            freeLists[k] = new LinkedList();
+        }
+        freeBlocks = new AddressIndex<>();
+        allocatedBlocks = new AddressIndex<>();
+
+        int baseAddress = 0;
+        for (int k = ORDERS - 1; k >= 0; k--) {
+            if ((maxSize & (1 << k)) != 0) {
+                addFree(new MemoryBlock(baseAddress, 1 << k), k);
+                baseAddress += 1 << k;
+            }
+        }
+        freeWords = baseAddress;
+    }
+
+    /**
+     * Returns the order of the smallest power of two which is at least the given length.
+     */
+    private static int orderOf(int length) {
+        return length <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+    private void addFree(MemoryBlock block, int order) {
+        freeBlocks.put(block.baseAddress, block);
+        freeLists[order].addFirst(block);
+    }
+
+    /**
+     * Checks if the given entry of the free list of the given order is still a free block
+     * of that order, rather than a stale entry.
+     */
+    private boolean isValid(MemoryBlock block, int order) {
+        return freeBlocks.get(block.baseAddress) == block && block.length == 1 << order;
+    }
+
+    /**
+     * Removes and returns a valid free block of the given order, or null if there is none.
+     */
+    private MemoryBlock takeFree(int order) {
+        LinkedList list = freeLists[order];
+        while (list.getSize() > 0) {
+            Node node = list.getFirst();
+            list.remove(node);
+            if (isValid(node.block, order)) {
+                freeBlocks.remove(node.block.baseAddress);
+                return node.block;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Allocates a memory block whose length is the given length rounded up to a power of two.
+     * The smallest free block that is long enough is taken, and split in halves until it
+     * has the rounded length. Each split frees the upper half. A length that is not positive
+     * cannot be allocated.
+     * 
+     * @param length
+     *        the length (in words) of the memory block that has to be allocated
+     * @return the base address of the allocated block, or -1 if unable to allocate
+     */
+    public int malloc(int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        int order = orderOf(length);
+        for (int k = order; k < ORDERS; k++) {
+            MemoryBlock block = takeFree(k);
+            if (block != null) {
+                while (k > order) {
+                    k--;
+                    block.length = 1 << k;
+                    addFree(new MemoryBlock(block.baseAddress + block.length, block.length), k);
+                }
+                allocatedBlocks.put(block.baseAddress, block);
+                freeWords -= block.length;
+                return block.baseAddress;
+            }
+        }
+        return -1; // Allocation failed
+    }
+
+    /**
+     * Frees the memory block whose base address equals the given address, and merges it
+     * with its buddy, and the resulting block with its own buddy, as long as the buddy is free.
+     * 
+     * @param address
+     *            the base address of the block to free
+     */
+    public void free(int address) {
+        if (allocatedBlocks.getSize() == 0) {
+            throw new IllegalArgumentException("no blocks are allocated");
+        }
+        MemoryBlock block = allocatedBlocks.remove(address);
+        if (block == null) {
+            return; // Treat invalid address as a successful operation (no exception thrown)
+        }
+        freeWords += block.length;
+        int order = orderOf(block.length);
+        while (order < ORDERS - 1) {
+            MemoryBlock buddy = freeBlocks.get(block.baseAddress ^ block.length);
+            if (buddy == null || buddy.length != block.length) {
+                break;
+            }
+            freeBlocks.remove(buddy.baseAddress);
+            block.baseAddress = Math.min(block.baseAddress, buddy.baseAddress);
+            block.length <<= 1;
+            order++;
+        }
+        addFree(block, order);
+    }
+
+    /**
+     * Performs defragmentation of this memory space. Since free blocks are merged with
+     * their buddies as soon as they are freed, there is nothing left to merge.
+     */
+    public void defrag() {
+    }
+
+    /**
+     * Gets the total length of the free blocks of this memory space, which malloc and
+     * free keep count of, in O(1) time.
+     * 
+     * @return the number of free words
+     */
+    public int getFreeWords() {
+        return freeWords;
+    }
+
+    /**
+     * Gets the length of the longest free block of this memory space. The free lists are
+     * checked from the highest order down, and the first valid block found is the longest,
+     * since all the blocks of an order have the same length. Stale entries found on the way
+     * are dropped, as takeFree drops them, so each one is only passed once.
+     * 
+     * @return the length of the longest free block, or 0 if there are no free blocks
+     */
+    public int getLargestFreeLength() {
+        for (int k = ORDERS - 1; k >= 0; k--) {
+            LinkedList list = freeLists[k];
+            while (list.getSize() > 0) {
+                Node node = list.getFirst();
+                if (isValid(node.block, k)) {
+                    return node.block.length;
+                }
+                list.remove(node);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Measures the external fragmentation of this memory space, as the part of the free
+     * words that lies outside the longest free block. Since every free block has a power
+     * of two length, a memory space whose free words are not a power of two is always
+     * somewhat fragmented.
+     * 
+     * @return a value between 0 (no fragmentation) and 1
+     */
+    public double fragmentation() {
+        return freeWords == 0 ? 0 : 1 - (double) getLargestFreeLength() / freeWords;
+    }
+
+    /**
+     * A textual representation of the free blocks and the allocated blocks of this memory
+     * space, each sorted by base address, for debugging purposes.
+     */
+    @Override
+    public String toString() {
+        return toString(freeBlocks) + "\n" + toString(allocatedBlocks);
+    }
+
+    private static String toString(AddressIndex<MemoryBlock> blocks) {
+        java.util.ArrayList<MemoryBlock> tempList = blocks.values();
+        tempList.sort((block1, block2) -> Integer.compare(block1.baseAddress, block2.baseAddress));
+        String s = "";
+        for (MemoryBlock block : tempList) {
+            s = s + block + " ";
+        }
+        return s;
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Represents a list of memory blocks that many threads can use at the same time without
+ * locks (a Harris-style linked list). Each node's next pointer carries a mark bit.
+ * A block is removed in two steps: its node is first marked, which removes it logically
+ * and prevents anything from being linked after it, and then it is unlinked from its
+ * predecessor. Any thread that walks past a marked node helps to unlink it. All updates
+ * are compare-and-set operations, so a thread that is delayed never blocks the others.
+ * Iteration and indexOf are weakly consistent: they reflect the list at some point during
+ * the traversal, and never fail because of concurrent modifications.
+ */
+public class ConcurrentBlockList {
+
+    /**
+     * Represents a node of the list. Each node points to a MemoryBlock object.
+     */
+    private static class ConcurrentNode {
+        final MemoryBlock block;  // the memory block that this node points at
+        // the next node in the list, marked if this node has been removed
+        final AtomicMarkableReference<ConcurrentNode> next = new AtomicMarkableReference<>(null, false);
+
+        ConcurrentNode(MemoryBlock block) {
+            this.block = block;
+        }
+    }
+
+    private final ConcurrentNode head;               // a sentinel node before the first block
+    private final AtomicReference<ConcurrentNode> tail; // a node at or near the end of the list
+    private final AtomicInteger size;                // number of blocks in this list
+
+    /**
+     * Constructs a new list.
+     */
+    public ConcurrentBlockList() {
+        head = new ConcurrentNode(null);
+        tail = new AtomicReference<>(head);
+        size = new AtomicInteger();
+    }
+
+    /**
+     * Gets the current size of the list
+     * @return The size of the list.
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Adds the specified memory block to the end of the list.
+     * The end is usually found from the tail hint. If the hint leads to a removed node,
+     * the list is walked from the beginning, unlinking removed nodes on the way.
+     * @param block the memory block to add
+     */
+    public void addLast(MemoryBlock block) {
+        ConcurrentNode node = new ConcurrentNode(block);
+        while (true) {
+            ConcurrentNode last = tail.get();
+            boolean[] marked = new boolean[1];
+            ConcurrentNode next = last.next.get(marked);
+            while (next != null && !marked[0]) {
+                last = next;
+                next = last.next.get(marked);
+            }
+            if (marked[0]) {
+                last = findLast();
+            }
+            if (last.next.compareAndSet(null, node, false, false)) {
+                tail.set(node);
+                size.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Walks the list from the beginning, unlinking the removed nodes, and returns its last
+     * node that is not removed.
+     */
+    private ConcurrentNode findLast() {
+        retry:
+        while (true) {
+            ConcurrentNode pred = head;
+            ConcurrentNode curr = pred.next.getReference();
+            boolean[] marked = new boolean[1];
+            while (curr != null) {
+                ConcurrentNode succ = curr.next.get(marked);
+                if (marked[0]) {
+                    if (!pred.next.compareAndSet(curr, succ, false, false)) {
+                        continue retry;
+                    }
+                } else {
+                    pred = curr;
+                }
+                curr = succ;
+            }
+            return pred;
+        }
+    }
+
+    /**
+     * Removes the first block that equals the specified memory block from the list.
+     * @param block the memory block to remove
+     * @return true if a block was removed, false if no equal block was found
+     */
+    public boolean remove(MemoryBlock block) {
+        retry:
+        while (true) {
+            ConcurrentNode pred = head;
+            ConcurrentNode curr = pred.next.getReference();
+            boolean[] marked = new boolean[1];
+            while (curr != null) {
+                ConcurrentNode succ = curr.next.get(marked);
+                if (marked[0]) {
+                    // Helps to unlink a removed node
+                    if (!pred.next.compareAndSet(curr, succ, false, false)) {
+                        continue retry;
+                    }
+                    curr = succ;
+                    continue;
+                }
+                if (curr.block.equals(block)) {
+                    if (!curr.next.attemptMark(succ, true)) {
+                        continue retry; // The node changed; look at it again
+                    }
+                    size.decrementAndGet();
+                    pred.next.compareAndSet(curr, succ, false, false);
+                    return true;
+                }
+                pred = curr;
+                curr = succ;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Finds the index of the first block that equals the given memory block.
+     * @param block the memory block to locate
+     * @return the index of the block among the blocks that are not removed, or -1 if not found
+     */
+    public int indexOf(MemoryBlock block) {
+        int index = 0;
+        boolean[] marked = new boolean[1];
+        ConcurrentNode curr = head.next.getReference();
+        while (curr != null) {
+            ConcurrentNode succ = curr.next.get(marked);
+            if (!marked[0]) {
+                if (curr.block.equals(block)) {
+                    return index;
+                }
+                index++;
+            }
+            curr = succ;
+        }
+        return -1;
+    }
+
+    /**
+     * A textual representation of this list, in the same format as LinkedList.toString.
+     * @return a string representing the list
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        ListIterator iterator = iterator();
+        while (iterator.hasNext()) {
+            s.append(iterator.next()).append(' ');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns a weakly consistent iterator over the blocks in this list that are not removed.
+     * @return a ListIterator over the blocks in this list
+     */
+    public ListIterator iterator() {
+        return new ListIterator((Node) null) {
+            private ConcurrentNode cursor = advance(head.next.getReference());
+
+            private ConcurrentNode advance(ConcurrentNode node) {
+                while (node != null && node.next.isMarked()) {
+                    node = node.next.getReference();
+                }
+                return node;
+            }
+
+            public boolean hasNext() {
+                return cursor != null;
+            }
+
+            public MemoryBlock next() {
+                MemoryBlock block = cursor.block;
+                cursor = advance(cursor.next.getReference());
+                return block;
+            }
+        };
+    }
+}
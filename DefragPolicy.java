@@ -0,0 +1,116 @@
+/**
+ * Represents the rules by which a MemorySpace defragments itself, without being asked to.
+ * A memory space can defragment itself when malloc fails, and then retry the allocation;
+ * after a free that takes its fragmentation above a threshold; and after every given number
+ * of frees. The rules can be combined, and a memory space counts how often each one of them
+ * made it defragment itself.
+ *
+ * The threshold rule fires when the fragmentation crosses the threshold, not whenever it is
+ * above it: after it fires, it is disarmed until the fragmentation falls to the threshold
+ * minus the hysteresis. A defragmentation that cannot merge the free blocks, because they
+ * are not adjacent, therefore does not repeat on every free.
+ */
+public class DefragPolicy {
+
+    /** The hysteresis of the threshold rule, unless another one is given */
+    public static final double DEFAULT_HYSTERESIS = 0.1;
+
+    /** A policy by which a memory space never defragments itself (the default) */
+    public static final DefragPolicy NEVER = new DefragPolicy(false, 1.0, 0);
+
+    /** A policy by which a memory space defragments itself when malloc fails, and retries */
+    public static final DefragPolicy ON_FAILURE = new DefragPolicy(true, 1.0, 0);
+
+    private final boolean onFailure;               // whether to defragment and retry when malloc fails
+    private final double fragmentationThreshold;   // the fragmentation above which free defragments
+    private final double fragmentationHysteresis;  // how far below the threshold the rule re-arms
+    private final int freeInterval;                // the number of frees between defragmentations, or 0
+
+    /**
+     * Constructs a new defragmentation policy, whose threshold rule has the default hysteresis.
+     *
+     * @param onFailure
+     *        whether malloc defragments the memory space and retries when it fails
+     * @param fragmentationThreshold
+     *        free defragments the memory space when its fragmentation crosses this threshold.
+     *        The fragmentation is between 0 and 1, so a threshold of 1 disables this rule
+     * @param freeInterval
+     *        free defragments the memory space after every freeInterval frees since the last
+     *        defragmentation, or never if this is 0
+     */
+    public DefragPolicy(boolean onFailure, double fragmentationThreshold, int freeInterval) {
+        this(onFailure, fragmentationThreshold, DEFAULT_HYSTERESIS, freeInterval);
+    }
+
+    /**
+     * Constructs a new defragmentation policy.
+     *
+     * @param onFailure
+     *        whether malloc defragments the memory space and retries when it fails
+     * @param fragmentationThreshold
+     *        free defragments the memory space when its fragmentation crosses this threshold.
+     *        The fragmentation is between 0 and 1, so a threshold of 1 disables this rule
+     * @param fragmentationHysteresis
+     *        after the threshold rule fires, it fires again only once the fragmentation has
+     *        fallen to the threshold minus this hysteresis
+     * @param freeInterval
+     *        free defragments the memory space after every freeInterval frees since the last
+     *        defragmentation, or never if this is 0
+     */
+    public DefragPolicy(boolean onFailure, double fragmentationThreshold, double fragmentationHysteresis,
+            int freeInterval) {
+        if (fragmentationThreshold < 0) {
+            throw new IllegalArgumentException("fragmentationThreshold must not be negative");
+        }
+        if (fragmentationHysteresis < 0) {
+            throw new IllegalArgumentException("fragmentationHysteresis must not be negative");
+        }
+        if (freeInterval < 0) {
+            throw new IllegalArgumentException("freeInterval must not be negative");
+        }
+        this.onFailure = onFailure;
+        this.fragmentationThreshold = fragmentationThreshold;
+        this.fragmentationHysteresis = fragmentationHysteresis;
+        this.freeInterval = freeInterval;
+    }
+
+    /**
+     * Checks if malloc defragments the memory space and retries when it fails.
+     * @return true if malloc retries after defragmenting
+     */
+    public boolean isOnFailure() {
+        return onFailure;
+    }
+
+    /**
+     * Gets the fragmentation above which free defragments the memory space.
+     * @return the fragmentation threshold, or 1 or more if free does not check it
+     */
+    public double getFragmentationThreshold() {
+        return fragmentationThreshold;
+    }
+
+    /**
+     * Gets the fragmentation at or below which the threshold rule re-arms after it fired.
+     * @return the threshold minus the hysteresis, but not less than 0
+     */
+    public double getRearmFragmentation() {
+        return Math.max(0, fragmentationThreshold - fragmentationHysteresis);
+    }
+
+    /**
+     * Gets the number of frees after which free defragments the memory space.
+     * @return the interval, in frees, or 0 if free does not count them
+     */
+    public int getFreeInterval() {
+        return freeInterval;
+    }
+
+    /**
+     * A textual representation of this policy, for debugging.
+     */
+    public String toString() {
+        return "DefragPolicy(onFailure=" + onFailure + ", fragmentationThreshold=" + fragmentationThreshold
+                + ", fragmentationHysteresis=" + fragmentationHysteresis + ", freeInterval=" + freeInterval + ")";
+    }
+}
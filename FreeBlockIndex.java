@@ -0,0 +1,58 @@
+/**
+ * Represents a collection of free memory blocks that is organized for a specific
+ * allocation policy. A MemorySpace that uses an index keeps its free blocks in the
+ * index instead of in a plain freeList.
+ */
+public interface FreeBlockIndex {
+
+    /**
+     * Removes from this index a free block whose length is at least the given length.
+     * @param length the requested length, in words
+     * @return the removed block, or null if no block is long enough
+     */
+    MemoryBlock take(int length);
+
+    /**
+     * Adds the given free block to this index.
+     * @param block the free block to add
+     */
+    void add(MemoryBlock block);
+
+    /**
+     * Gets the length of the longest free block of this index, without scanning all of
+     * its blocks.
+     * @return the length of the longest block, or 0 if the index is empty
+     */
+    int largestLength();
+
+    /**
+     * Merges adjacent free blocks of this index.
+     */
+    void defrag();
+
+    /**
+     * Returns the free blocks of this index, in the order in which the index keeps them.
+     * @return a new list containing the free blocks
+     */
+    LinkedList toList();
+
+    /**
+     * Sorts the given blocks by base address, and merges the adjacent ones.
+     * @param blocks the blocks to merge, which are modified by this method
+     * @return a new list of the merged blocks, sorted by base address
+     */
+    static java.util.ArrayList<MemoryBlock> coalesce(java.util.ArrayList<MemoryBlock> blocks) {
+        blocks.sort((block1, block2) -> Integer.compare(block1.baseAddress, block2.baseAddress));
+        java.util.ArrayList<MemoryBlock> merged = new java.util.ArrayList<>();
+        MemoryBlock prev = null;
+        for (MemoryBlock current : blocks) {
+            if (prev != null && prev.baseAddress + prev.length == current.baseAddress) {
+                prev.length += current.length;
+            } else {
+                merged.add(current);
+                prev = current;
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ * Represents the free blocks of a memory space, kept in a balanced binary search tree
+ * (a treap) ordered by base address. When a block is added, its predecessor and its
+ * successor are found in O(log n), and the block is merged with them if they are
+ * adjacent to it. Therefore no two free blocks in the tree are ever adjacent, and
+ * there is nothing left for defrag to do.
+ * Each node also records the maximal block length in its subtree, which lets take find
+ * the lowest-address block that fits (address-ordered first fit) in O(log n).
+ */
+public class FreeBlockTree implements FreeBlockIndex {
+
+    /**
+     * Represents a node of the tree. Each node points to a free memory block.
+     */
+    private static class TreeNode {
+        MemoryBlock block;  // the free block, whose base address is the key of this node
+        int priority;       // the heap priority of this node, which keeps the tree balanced
+        int maxLength;      // the maximal block length in the subtree of this node
+        TreeNode left;      // the subtree of the blocks with lower base addresses
+        TreeNode right;     // the subtree of the blocks with higher base addresses
+
+        TreeNode(MemoryBlock block, int priority) {
+            this.block = block;
+            this.priority = priority;
+            this.maxLength = block.length;
+        }
+    }
+
+    private TreeNode root;  // the root of the tree, or null if the tree is empty
+    private int size;       // number of blocks in the tree
+    private int seed;       // state of the generator of node priorities
+
+    /**
+     * Constructs an empty tree.
+     */
+    public FreeBlockTree() {
+        root = null;
+        size = 0;
+        seed = 0x2545F491;
+    }
+
+    /**
+     * Gets the number of free blocks in the tree
+     * @return the number of blocks
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the next node priority (xorshift generator).
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * Returns the block with the highest base address which is at most the given address,
+     * or null if there is none.
+     */
+    private MemoryBlock floor(int address) {
+        MemoryBlock result = null;
+        TreeNode current = root;
+        while (current != null) {
+            if (current.block.baseAddress <= address) {
+                result = current.block;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the block whose base address equals the given address, or null if there is none.
+     */
+    private MemoryBlock find(int address) {
+        TreeNode current = root;
+        while (current != null && current.block.baseAddress != address) {
+            current = address < current.block.baseAddress ? current.left : current.right;
+        }
+        return current == null ? null : current.block;
+    }
+
+    private static int maxLengthOf(TreeNode node) {
+        return node == null ? Integer.MIN_VALUE : node.maxLength;
+    }
+
+    /**
+     * Recomputes the maximal block length of the given node from its block and its children.
+     */
+    private static TreeNode pull(TreeNode node) {
+        node.maxLength = Math.max(node.block.length, Math.max(maxLengthOf(node.left), maxLengthOf(node.right)));
+        return node;
+    }
+
+    private TreeNode rotateRight(TreeNode node) {
+        TreeNode left = node.left;
+        node.left = left.right;
+        left.right = pull(node);
+        return pull(left);
+    }
+
+    private TreeNode rotateLeft(TreeNode node) {
+        TreeNode right = node.right;
+        node.right = right.left;
+        right.left = pull(node);
+        return pull(right);
+    }
+
+    /**
+     * Recomputes the maximal block lengths on the path to the block with the given base
+     * address, after the length of that block has changed.
+     */
+    private void refresh(TreeNode node, int address) {
+        if (node == null) {
+            return;
+        }
+        if (address < node.block.baseAddress) {
+            refresh(node.left, address);
+        } else if (address > node.block.baseAddress) {
+            refresh(node.right, address);
+        }
+        pull(node);
+    }
+
+    /**
+     * Inserts the given block into the subtree, and returns the new root of the subtree.
+     */
+    private TreeNode insert(TreeNode node, MemoryBlock block) {
+        if (node == null) {
+            size++;
+            return new TreeNode(block, nextPriority());
+        }
+        if (block.baseAddress < node.block.baseAddress) {
+            node.left = insert(node.left, block);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, block);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        return pull(node);
+    }
+
+    /**
+     * Deletes the block with the given base address from the subtree, and returns the new
+     * root of the subtree.
+     */
+    private TreeNode delete(TreeNode node, int address) {
+        if (node == null) {
+            return null;
+        }
+        if (address < node.block.baseAddress) {
+            node.left = delete(node.left, address);
+        } else if (address > node.block.baseAddress) {
+            node.right = delete(node.right, address);
+        } else if (node.left == null) {
+            size--;
+            return node.right;
+        } else if (node.right == null) {
+            size--;
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, address);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, address);
+        }
+        return pull(node);
+    }
+
+    /**
+     * Removes the free block with the lowest base address whose length is at least the
+     * given length.
+     * @param length the requested length, in words
+     * @return the removed block, or null if no block is long enough
+     */
+    public MemoryBlock take(int length) {
+        TreeNode current = root;
+        if (current == null || current.maxLength < length) {
+            return null;
+        }
+        // Descends towards the lowest address: the left subtree is preferred whenever it
+        // holds a block that fits, then the node itself, and only then the right subtree
+        while (true) {
+            if (maxLengthOf(current.left) >= length) {
+                current = current.left;
+            } else if (current.block.length >= length) {
+                break;
+            } else {
+                current = current.right;
+            }
+        }
+        MemoryBlock block = current.block;
+        root = delete(root, block.baseAddress);
+        return block;
+    }
+
+    /**
+     * Adds the given free block to the tree, merging it with the free blocks that
+     * immediately precede and follow it.
+     * @param block the free block to add
+     */
+    public void add(MemoryBlock block) {
+        MemoryBlock merged = block;
+        MemoryBlock predecessor = floor(block.baseAddress);
+        if (predecessor != null && predecessor.baseAddress + predecessor.length == block.baseAddress) {
+            predecessor.length += block.length;
+            merged = predecessor;
+            refresh(root, merged.baseAddress);
+        } else {
+            root = insert(root, block);
+        }
+        MemoryBlock successor = find(merged.baseAddress + merged.length);
+        if (successor != null && successor != merged) {
+            root = delete(root, successor.baseAddress);
+            merged.length += successor.length;
+            refresh(root, merged.baseAddress);
+        }
+    }
+
+    /**
+     * Gets the length of the longest free block, which the root records, in O(1).
+     * @return the length of the longest block, or 0 if the tree is empty
+     */
+    public int largestLength() {
+        return root == null ? 0 : root.maxLength;
+    }
+
+    /**
+     * Does nothing, since adjacent free blocks are merged as soon as they are added.
+     */
+    public void defrag() {
+    }
+
+    /**
+     * Returns the free blocks, sorted by base address.
+     * @return a new list containing the free blocks
+     */
+    public LinkedList toList() {
+        LinkedList list = new LinkedList();
+        addAll(root, list);
+        return list;
+    }
+
+    private void addAll(TreeNode node, LinkedList list) {
+        if (node != null) {
+            addAll(node.left, list);
+            list.addLast(node.block);
+            addAll(node.right, list);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Represents a list of memory blocks, implemented as an indexable skip list.
+ * Every node has a random number of levels, and each forward link of a node records
+ * its span: the number of positions it skips. Following the links from the top level
+ * down while summing their spans reaches any position in O(log n) expected time, so
+ * getBlock, add and remove by index do not walk the list like they do in LinkedList.
+ * The list offers the same operations as LinkedList, except for the ones that return nodes.
+ */
+public class IndexableSkipList {
+
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * Represents a node of the skip list. Each node points to a MemoryBlock object.
+     */
+    private static class SkipNode {
+        MemoryBlock block;   // the memory block that this node points at
+        SkipNode[] next;     // next[l] is the following node at level l, or null
+        int[] span;          // span[l] is the number of positions that next[l] skips
+
+        SkipNode(MemoryBlock block, int levels) {
+            this.block = block;
+            this.next = new SkipNode[levels];
+            this.span = new int[levels];
+        }
+    }
+
+    // A sentinel node before the first position, which has all the levels.
+    // A null link is treated as a link to a virtual node after the last position.
+    private final SkipNode head;
+    private int size;  // number of elements in this list
+    private int seed;  // state of the generator of node levels
+
+    /**
+     * Constructs a new list.
+     */
+    public IndexableSkipList() {
+        head = new SkipNode(null, MAX_LEVEL);
+        java.util.Arrays.fill(head.span, 1);
+        size = 0;
+        seed = 0x6A09E667;
+    }
+
+    /**
+     * Gets the current size of the list
+     * @return The size of the list.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns a random number of levels, where each additional level has probability 1/2.
+     */
+    private int randomLevels() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return Math.min(MAX_LEVEL, 1 + Integer.numberOfTrailingZeros(seed | (1 << (MAX_LEVEL - 1))));
+    }
+
+    /**
+     * Finds, at every level, the last node whose position is at most the given index
+     * (the head has position 0, and the block at index i has position i + 1).
+     * @param index the index whose predecessors are found
+     * @param update receives the predecessor of every level
+     * @param positions receives the position of the predecessor of every level
+     */
+    private void findPredecessors(int index, SkipNode[] update, int[] positions) {
+        SkipNode current = head;
+        int position = 0;
+        for (int l = MAX_LEVEL - 1; l >= 0; l--) {
+            while (current.next[l] != null && position + current.span[l] <= index) {
+                position += current.span[l];
+                current = current.next[l];
+            }
+            update[l] = current;
+            positions[l] = position;
+        }
+    }
+
+    /**
+     * Gets the memory block located at the given index in this list.
+     * @param index the index of the block to retrieve
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     * @return the memory block at the given index
+     */
+    public MemoryBlock getBlock(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        SkipNode current = head;
+        int position = 0;
+        for (int l = MAX_LEVEL - 1; l >= 0; l--) {
+            while (current.next[l] != null && position + current.span[l] <= index + 1) {
+                position += current.span[l];
+                current = current.next[l];
+            }
+        }
+        return current.block;
+    }
+
+    /**
+     * Finds the index of the first block that equals the given memory block.
+     * @param block the memory block to locate
+     * @return the index of the block, or -1 if not found
+     */
+    public int indexOf(MemoryBlock block) {
+        SkipNode current = head.next[0];
+        for (int index = 0; current != null; index++) {
+            if (current.block.equals(block)) {
+                return index;
+            }
+            current = current.next[0];
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the specified memory block to the beginning of the list.
+     * @param block the memory block to add
+     */
+    public void addFirst(MemoryBlock block) {
+        add(0, block);
+    }
+
+    /**
+     * Adds the specified memory block to the end of the list.
+     * @param block the memory block to add
+     */
+    public void addLast(MemoryBlock block) {
+        add(size, block);
+    }
+
+    /**
+     * Inserts the specified memory block at the specified index.
+     * @param index the position to insert the block
+     * @param block the memory block to insert
+     */
+    public void add(int index, MemoryBlock block) {
+        if (index < 0 || index > size) {
+            throw new IllegalArgumentException("Index out of bounds");
+        }
+        SkipNode[] update = new SkipNode[MAX_LEVEL];
+        int[] positions = new int[MAX_LEVEL];
+        findPredecessors(index, update, positions);
+
+        SkipNode node = new SkipNode(block, randomLevels());
+        for (int l = 0; l < MAX_LEVEL; l++) {
+            if (l < node.next.length) {
+                node.next[l] = update[l].next[l];
+                node.span[l] = update[l].span[l] - (index - positions[l]);
+                update[l].next[l] = node;
+                update[l].span[l] = index - positions[l] + 1;
+            } else {
+                update[l].span[l]++;
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Removes the block at the specified index from the list.
+     * @param index the index of the block to remove
+     */
+    public void remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        SkipNode[] update = new SkipNode[MAX_LEVEL];
+        int[] positions = new int[MAX_LEVEL];
+        findPredecessors(index, update, positions);
+
+        SkipNode node = update[0].next[0];
+        for (int l = 0; l < MAX_LEVEL; l++) {
+            if (update[l].next[l] == node) {
+                update[l].span[l] += node.span[l] - 1;
+                update[l].next[l] = node.next[l];
+            } else {
+                update[l].span[l]--;
+            }
+        }
+        size--;
+    }
+
+    /**
+     * Removes the first block that equals the specified memory block from the list.
+     * @param block the memory block to remove
+     */
+    public void remove(MemoryBlock block) {
+        remove(indexOf(block));
+    }
+
+    /**
+     * A textual representation of this list, in the same format as LinkedList.toString.
+     * @return a string representing the list
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (SkipNode current = head.next[0]; current != null; current = current.next[0]) {
+            s.append(current.block).append(' ');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns an iterator over the blocks in this list, in proper sequence.
+     * @return a ListIterator over the blocks in this list
+     */
+    public ListIterator iterator() {
+        return new ListIterator((Node) null) {
+            private SkipNode cursor = head.next[0];
+
+            public boolean hasNext() {
+                return cursor != null;
+            }
+
+            public MemoryBlock next() {
+                MemoryBlock block = cursor.block;
+                cursor = cursor.next[0];
+                return block;
+            }
+        };
+    }
+}
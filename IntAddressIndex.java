@@ -0,0 +1,74 @@
+/**
+ * Represents a hash table that maps memory addresses to int values, such as the slots
+ * of a BlockArrayList. It shares the key handling of AddressIndex through AddressTable,
+ * but keeps its values in a primitive int array, so that once it is large enough, none
+ * of its operations creates an object. Addresses must be non-negative.
+ */
+public class IntAddressIndex extends AddressTable {
+
+    /** The value that get and remove return for an address that is not in the index */
+    public static final int NONE = -1;
+
+    private int[] values; // values[i] is the value of the address in slot i
+
+    /**
+     * Constructs an empty index that can hold the given number of addresses before it grows.
+     * @param expectedSize the expected number of addresses
+     */
+    public IntAddressIndex(int expectedSize) {
+        super(expectedSize);
+        values = new int[capacity()];
+    }
+
+    /**
+     * Gets the value of the given address.
+     * @param address the address to look up
+     * @return the value of the address, or NONE if the address is not in this index
+     */
+    public int get(int address) {
+        int i = find(address);
+        return i < 0 ? NONE : values[i];
+    }
+
+    /**
+     * Maps the given address to the given value, replacing its previous value, if any.
+     * @param address the address, which must not be negative
+     * @param value the value of the address
+     */
+    public void put(int address, int value) {
+        int i = insert(address); // may grow the values array, so it is called first
+        values[i] = value;
+    }
+
+    /**
+     * Removes the given address from this index.
+     * @param address the address to remove
+     * @return the value the address had, or NONE if the address was not in this index
+     */
+    public int remove(int address) {
+        int i = find(address);
+        if (i < 0) {
+            return NONE;
+        }
+        int value = values[i];
+        removeSlot(i);
+        return value;
+    }
+
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    void clearValue(int slot) {
+    }
+
+    void resize(int oldCapacity, int[] newSlots) {
+        int[] oldValues = values;
+        values = new int[capacity()];
+        for (int i = 0; i < oldCapacity; i++) {
+            if (newSlots[i] >= 0) {
+                values[newSlots[i]] = oldValues[i];
+            }
+        }
+    }
+}
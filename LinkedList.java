@@ -1,19 +1,40 @@
 
 /**
- * Represents a list of Nodes.
+ * Represents a doubly-linked list of Nodes.
  */
 public class LinkedList {
     private Node first; // pointer to the first element of this list
     private Node last;  // pointer to the last element of this list
     private int size;   // number of elements in this list
+    int modCount;       // number of structural modifications, checked by iterators
+    private Owner owner = new Owner(); // the owner of the nodes of this list
+
+    // A stack of detached nodes, linked through their next pointers, which are reused by
+    // the add methods instead of allocating new nodes
+    private Node pool;
+    private int poolSize;           // number of nodes in the pool
+    private final int poolCapacity; // maximal number of nodes in the pool
+    private long poolHits;          // number of added nodes that were taken from the pool
+    private long poolMisses;        // number of added nodes that had to be allocated
 
     /**
      * Constructs a new list.
      */
     public LinkedList() {
+        this(0);
+    }
+
+    /**
+     * Constructs a new list that keeps up to the given number of removed nodes, and reuses
+     * them when blocks are added. A node that was removed from such a list may be reused
+     * for another block, so callers must not keep references to removed nodes.
+     * @param poolCapacity the maximal number of removed nodes to keep
+     */
+    public LinkedList(int poolCapacity) {
         first = null;
         last = null; // Correctly initialize last as null (for empty list)
         size = 0;
+        this.poolCapacity = poolCapacity;
     }
 
     /**
@@ -40,8 +61,82 @@ public class LinkedList {
         return this.size;
     }
 
+    /**
+     * Gets the number of added nodes that were taken from the pool of removed nodes
+     * @return the number of pool hits
+     */
+    public long getPoolHits() {
+        return this.poolHits;
+    }
+
+    /**
+     * Gets the number of added nodes that had to be allocated because the pool was empty
+     * @return the number of pool misses
+     */
+    public long getPoolMisses() {
+        return this.poolMisses;
+    }
+
+    /**
+     * Identifies the list that a node belongs to. When appendAll moves the nodes of one
+     * list to another, the owner of the moved nodes is forwarded to the owner of the
+     * receiving list, so that the moved nodes need not be visited.
+     */
+    static final class Owner {
+        private Owner forward; // the owner that this owner was forwarded to, or null
+    }
+
+    /**
+     * Checks that the given node belongs to this list, following the forwarded owners of
+     * the node, and shortening its path to the current owner.
+     */
+    private boolean owns(Node node) {
+        Owner nodeOwner = node.owner;
+        if (nodeOwner == null) {
+            return false;
+        }
+        while (nodeOwner.forward != null) {
+            nodeOwner = nodeOwner.forward;
+        }
+        node.owner = nodeOwner;
+        return nodeOwner == owner;
+    }
+
+    /**
+     * Returns a node of this list pointing to the given block, taken from the pool if possible.
+     */
+    private Node newNode(MemoryBlock block) {
+        if (pool == null) {
+            poolMisses++;
+            Node node = new Node(block);
+            node.owner = owner;
+            return node;
+        }
+        poolHits++;
+        Node node = pool;
+        pool = node.next;
+        poolSize--;
+        node.next = null;
+        node.block = block;
+        node.owner = owner;
+        return node;
+    }
+
+    /**
+     * Adds the given detached node to the pool, unless the pool is full.
+     */
+    private void recycle(Node node) {
+        if (poolSize < poolCapacity) {
+            node.block = null;
+            node.next = pool;
+            pool = node;
+            poolSize++;
+        }
+    }
+
     /**
      * Gets the node located at the given index in this list.
+     * The list is walked from its first node or from its last node, whichever is closer.
      * @param index the index of the node to retrieve, between 0 and size
      * @throws IllegalArgumentException if index is negative or greater than or equal to size
      * @return the node at the given index
@@ -50,9 +145,17 @@ public class LinkedList {
         if (index < 0 || index >= size) {
             throw new IllegalArgumentException("index must be between 0 and size");
         }
-        Node current = first;
-        for (int i = 0; i < index; i++) {
-            current = current.next;
+        Node current;
+        if (index < size / 2) {
+            current = first;
+            for (int i = 0; i < index; i++) {
+                current = current.next;
+            }
+        } else {
+            current = last;
+            for (int i = size - 1; i > index; i--) {
+                current = current.prev;
+            }
         }
         return current;
     }
@@ -88,15 +191,17 @@ public class LinkedList {
      * @param block the memory block to add
      */
     public void addFirst(MemoryBlock block) {
-        Node newNode = new Node(block);
+        Node newNode = newNode(block);
         if (first == null) { // If the list is empty
             first = newNode;
             last = newNode;  // Make sure both first and last point to the new node
         } else {
             newNode.next = first;
+            first.prev = newNode;
             first = newNode;
         }
         size++;
+        modCount++;
     }
 
     /**
@@ -104,15 +209,17 @@ public class LinkedList {
      * @param block the memory block to add
      */
     public void addLast(MemoryBlock block) {
-        Node newNode = new Node(block);
+        Node newNode = newNode(block);
         if (last == null) { // If the list is empty
             first = newNode;
             last = newNode;  // Make sure both first and last point to the new node
         } else {
+            newNode.prev = last;
             last.next = newNode;
             last = newNode;
         }
         size++;
+        modCount++;
     }
 
     /**
@@ -130,41 +237,151 @@ public class LinkedList {
         } else if (index == size) {
             addLast(block);
         } else {
-            Node previous = getNode(index - 1);
-            Node newNode = new Node(block);
-            newNode.next = previous.next;
-            previous.next = newNode;
+            insertBefore(getNode(index), block);
+        }
+    }
+
+    /**
+     * Inserts a new node with the specified memory block right before the given node of
+     * this list, in constant time.
+     * @param node a node of this list, or null to insert at the end of the list
+     * @param block the memory block to insert
+     * @throws IllegalArgumentException if the node is not a node of this list
+     */
+    void insertBefore(Node node, MemoryBlock block) {
+        if (node != null && !owns(node)) {
+            throw new IllegalArgumentException("Node not found in the list");
+        }
+        if (node == null) {
+            addLast(block);
+        } else if (node == first) {
+            addFirst(block);
+        } else {
+            Node newNode = newNode(block);
+            newNode.prev = node.prev;
+            newNode.next = node;
+            node.prev.next = newNode;
+            node.prev = newNode;
             size++;
+            modCount++;
         }
     }    
     /**
-     * Removes the specified node from the list.
+     * Adds new nodes with the specified memory blocks, in order, to the end of the list.
+     * @param blocks the memory blocks to add
+     */
+    public void addAll(MemoryBlock[] blocks) {
+        for (MemoryBlock block : blocks) {
+            Node newNode = newNode(block);
+            newNode.prev = last;
+            if (last == null) {
+                first = newNode;
+            } else {
+                last.next = newNode;
+            }
+            last = newNode;
+        }
+        size += blocks.length;
+        modCount++;
+    }
+
+    /**
+     * Moves all the nodes of the other list to the end of this list, in constant time.
+     * The nodes themselves are moved, not copied, and the other list becomes empty.
+     * The owner of the moved nodes is forwarded to the owner of this list, and the other
+     * list gets a new owner.
+     * @param other the list whose nodes are moved
+     */
+    public void appendAll(LinkedList other) {
+        if (other == this) {
+            throw new IllegalArgumentException("Cannot append a list to itself");
+        }
+        if (other.first == null) {
+            return;
+        }
+        if (last == null) {
+            first = other.first;
+        } else {
+            last.next = other.first;
+            other.first.prev = last;
+        }
+        last = other.last;
+        size += other.size;
+        modCount++;
+        other.owner.forward = owner;
+        other.owner = new Owner();
+        other.first = null;
+        other.last = null;
+        other.size = 0;
+        other.modCount++;
+    }
+
+    /**
+     * Splits this list before the given node: the given node and all the nodes that follow
+     * it are moved to a new list, and this list keeps the nodes that precede it.
+     * This takes time proportional to the number of moved nodes, which have to be counted.
+     * @param node a node of this list
+     * @return a new list that starts with the given node
+     * @throws IllegalArgumentException if the node is not a node of this list
+     */
+    public LinkedList splitAt(Node node) {
+        if (node == null) {
+            throw new NullPointerException("Cannot split at null node");
+        }
+        if (!owns(node)) {
+            throw new IllegalArgumentException("Node not found in the list");
+        }
+        LinkedList tail = new LinkedList(poolCapacity);
+        int moved = 0;
+        for (Node current = node; current != null; current = current.next) {
+            current.owner = tail.owner;
+            moved++;
+        }
+        tail.first = node;
+        tail.last = last;
+        tail.size = moved;
+        last = node.prev;
+        if (last == null) {
+            first = null;
+        } else {
+            last.next = null;
+        }
+        node.prev = null;
+        size -= moved;
+        modCount++;
+        return tail;
+    }
+
+    /**
+     * Removes the specified node from the list, in constant time.
+     * If this list has a node pool, the removed node goes to the pool.
      * @param node the node to remove
+     * @throws IllegalArgumentException if the node is not a node of this list, for example
+     *         because it belongs to another list, or was already removed
      */
     public void remove(Node node) {
         if (node == null) {
             throw new NullPointerException("Cannot remove null node");
         }
-        if (node == first) {
-            first = first.next;
-            if (first == null) {
-                last = null;
-            }
+        if (!owns(node)) {
+            throw new IllegalArgumentException("Node not found in the list");
+        }
+        if (node.prev == null) {
+            first = node.next;
         } else {
-            Node current = first;
-            while (current != null && current.next != node) {
-                current = current.next;
-            }
-            if (current != null) {
-                current.next = node.next;
-                if (node == last) {
-                    last = current;
-                }
-            } else {
-                throw new IllegalArgumentException("Node not found in the list");
-            }
+            node.prev.next = node.next;
         }
+        if (node.next == null) {
+            last = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.owner = null;
         size--;
+        modCount++;
+        recycle(node);
     }
 
     /**
@@ -183,7 +400,14 @@ public class LinkedList {
      * @param block the memory block of the node to remove
      */
     public void remove(MemoryBlock block) {
-        remove(getNode(indexOf(block)));
+        Node current = first;
+        while (current != null && !current.block.equals(block)) {
+            current = current.next;
+        }
+        if (current == null) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        remove(current);
     }
 
     /**
@@ -202,9 +426,35 @@ public class LinkedList {
 
     /**
      * Returns an iterator over the elements in this list in proper sequence.
-     * @return a ListIterator over the elements in this list
+     * The iterator can remove, replace and insert elements at its position.
+     * @return a LinkedListIterator over the elements in this list
+     */
+    public LinkedListIterator iterator() {
+        return new LinkedListIterator(this);
+    }
+
+    /**
+     * Returns a spliterator over the elements in this list in proper sequence.
+     * @return a spliterator over the elements in this list
+     */
+    public java.util.Spliterator<MemoryBlock> spliterator() {
+        return new LinkedListSpliterator(this);
+    }
+
+    /**
+     * Returns a sequential stream of the elements in this list.
+     * @return a stream of the elements in this list
+     */
+    public java.util.stream.Stream<MemoryBlock> stream() {
+        return java.util.stream.StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Returns a parallel stream of the elements in this list. The list must not be
+     * modified while the stream is processed.
+     * @return a parallel stream of the elements in this list
      */
-    public ListIterator iterator() {
-        return new ListIterator(first);
+    public java.util.stream.Stream<MemoryBlock> parallelStream() {
+        return java.util.stream.StreamSupport.stream(spliterator(), true);
     }
 }
@@ -0,0 +1,86 @@
+/**
+ * Represents an iterator of a LinkedList that can also modify the list at its position,
+ * in constant time. If the list is structurally modified in any other way while the
+ * iterator is in use, the iterator fails with a ConcurrentModificationException.
+ * Only LinkedList.iterator creates such iterators.
+ */
+public class LinkedListIterator extends ListIterator {
+
+    private final LinkedList list;  // the iterated list
+    private Node lastReturned;      // the node whose block was returned last, or null
+    private int expectedModCount;   // the modification count of the list that this iterator expects
+
+    /** Constructs an iterator that can modify the given list, starting at its first node */
+    LinkedListIterator(LinkedList list) {
+        super(list.getFirst());
+        this.list = list;
+        expectedModCount = list.modCount;
+    }
+
+    /** Returns the current element in the list, and advances the cursor */
+    public MemoryBlock next() {
+        checkForModification();
+        lastReturned = current;
+        return super.next();
+    }
+
+    /**
+     * Removes from the list the block that was returned last by next.
+     * @throws IllegalStateException if next has not been called, or the block was already removed
+     */
+    public void remove() {
+        checkForModification();
+        if (lastReturned == null) {
+            throw new IllegalStateException("next must be called before remove");
+        }
+        list.remove(lastReturned);
+        lastReturned = null;
+        expectedModCount = list.modCount;
+    }
+
+    /**
+     * Replaces the block that was returned last by next with the given block.
+     * @param block the new block
+     * @throws IllegalStateException if next has not been called, or the block was removed
+     */
+    public void set(MemoryBlock block) {
+        checkForModification();
+        if (lastReturned == null) {
+            throw new IllegalStateException("next must be called before set");
+        }
+        lastReturned.block = block;
+    }
+
+    /**
+     * Inserts the given block into the list immediately before the block that was returned
+     * last by next. The inserted block is not returned by this iterator.
+     * @param block the block to insert
+     * @throws IllegalStateException if next has not been called, or the block was removed
+     */
+    public void insertBefore(MemoryBlock block) {
+        checkForModification();
+        if (lastReturned == null) {
+            throw new IllegalStateException("next must be called before insertBefore");
+        }
+        list.insertBefore(lastReturned, block);
+        expectedModCount = list.modCount;
+    }
+
+    /**
+     * Inserts the given block into the list immediately after the block that was returned
+     * last by next (or at the beginning of the list, if next has not been called), that is,
+     * right before the cursor. The inserted block is not returned by this iterator.
+     * @param block the block to insert
+     */
+    public void insertAfter(MemoryBlock block) {
+        checkForModification();
+        list.insertBefore(current, block);
+        expectedModCount = list.modCount;
+    }
+
+    private void checkForModification() {
+        if (list.modCount != expectedModCount) {
+            throw new java.util.ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Represents a spliterator of a linked list, which lets streams process the memory blocks
+ * of the list, possibly in parallel. A linked list cannot be split in the middle without
+ * walking to it, so trySplit copies a batch of blocks from the front into an array, and
+ * the array is processed by another thread while this spliterator continues with the
+ * rest. Each batch is larger than the previous one, so that long lists are split into few,
+ * large parts.
+ */
+public class LinkedListSpliterator implements Spliterator<MemoryBlock> {
+
+    private static final int BATCH_UNIT = 1024;   // the size increase of each batch
+    private static final int MAX_BATCH = 1 << 25; // the maximal size of a batch
+
+    private final LinkedList list;  // the iterated list
+    private Node current;           // the node of the next block, or null
+    private int remaining;          // number of blocks left to process
+    private int batch;              // the size of the last batch
+    private final int expectedModCount; // the modification count of the list that this spliterator expects
+
+    /**
+     * Constructs a spliterator over all the blocks of the given list.
+     * @param list the list to iterate
+     */
+    public LinkedListSpliterator(LinkedList list) {
+        this.list = list;
+        this.current = list.getFirst();
+        this.remaining = list.getSize();
+        this.expectedModCount = list.modCount;
+    }
+
+    public boolean tryAdvance(Consumer<? super MemoryBlock> action) {
+        if (current == null) {
+            return false;
+        }
+        MemoryBlock block = current.block;
+        current = current.next;
+        remaining--;
+        action.accept(block);
+        checkForModification();
+        return true;
+    }
+
+    public void forEachRemaining(Consumer<? super MemoryBlock> action) {
+        Node node = current;
+        current = null;
+        remaining = 0;
+        while (node != null) {
+            action.accept(node.block);
+            node = node.next;
+        }
+        checkForModification();
+    }
+
+    public Spliterator<MemoryBlock> trySplit() {
+        if (current == null || remaining <= 1) {
+            return null;
+        }
+        int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+        MemoryBlock[] blocks = new MemoryBlock[n];
+        for (int i = 0; i < n; i++) {
+            blocks[i] = current.block;
+            current = current.next;
+        }
+        batch = n;
+        remaining -= n;
+        return Spliterators.spliterator(blocks, 0, n, characteristics());
+    }
+
+    public long estimateSize() {
+        return remaining;
+    }
+
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+    }
+
+    private void checkForModification() {
+        if (list.modCount != expectedModCount) {
+            throw new java.util.ConcurrentModificationException();
+        }
+    }
+}
@@ -1,4 +1,8 @@
-/** Represents an iterator of a linked list. */
+/**
+ * Represents an iterator of a linked list.
+ * This iterator only reads the list. The iterator returned by LinkedList.iterator is a
+ * LinkedListIterator, which can also modify the list at its position.
+ */
 public class ListIterator {
 
     // current position in the list (cursor)
@@ -20,4 +24,4 @@ public class ListIterator {
         current = current.next;
         return currentNode.block;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+/**
+ * Represents the state of a memory space at one moment: its allocated blocks, and its free
+ * words as maximal ranges, both sorted by base address. The free ranges do not depend on how
+ * the memory space keeps its free blocks, nor on whether it has merged them yet.
+ *
+ * A snapshot never changes. A MemorySpace creates a new one, which shares all the unchanged
+ * structure with the old one, every time a block is allocated or freed, so any number of
+ * threads can read snapshots without locking while the memory space keeps changing.
+ */
+public final class MemorySnapshot {
+
+    private final PersistentBlockList allocatedBlocks;  // the allocated blocks
+    private final PersistentBlockList freeRanges;       // the free words, as maximal ranges
+
+    private MemorySnapshot(PersistentBlockList allocatedBlocks, PersistentBlockList freeRanges) {
+        this.allocatedBlocks = allocatedBlocks;
+        this.freeRanges = freeRanges;
+    }
+
+    /**
+     * Returns the snapshot of a new memory space of the given size, all of which is free.
+     */
+    static MemorySnapshot of(int size) {
+        PersistentBlockList freeRanges = PersistentBlockList.empty();
+        if (size > 0) {
+            freeRanges = freeRanges.addLast(new MemoryBlock(0, size));
+        }
+        return new MemorySnapshot(PersistentBlockList.empty(), freeRanges);
+    }
+
+    /**
+     * Gets the allocated blocks, sorted by base address.
+     * @return the allocated blocks
+     */
+    public PersistentBlockList getAllocatedBlocks() {
+        return allocatedBlocks;
+    }
+
+    /**
+     * Gets the free words as maximal ranges, sorted by base address. No two ranges are
+     * adjacent.
+     * @return the free ranges
+     */
+    public PersistentBlockList getFreeRanges() {
+        return freeRanges;
+    }
+
+    /**
+     * Returns the snapshot after the block with the given base address and length, which
+     * lies within one free range, has been allocated. Takes O(log n) expected time.
+     */
+    MemorySnapshot allocate(int address, int length) {
+        int index = allocatedBlocks.countBelow(address);
+        PersistentBlockList allocated = allocatedBlocks.add(index, new MemoryBlock(address, length));
+
+        // Cuts the block out of the free range that contains it
+        int rangeIndex = freeRanges.countBelow(address + 1) - 1;
+        MemoryBlock range = freeRanges.getBlock(rangeIndex);
+        int before = address - range.baseAddress;
+        int after = range.baseAddress + range.length - (address + length);
+        PersistentBlockList free;
+        if (before > 0 && after > 0) {
+            free = freeRanges.set(rangeIndex, new MemoryBlock(range.baseAddress, before))
+                    .add(rangeIndex + 1, new MemoryBlock(address + length, after));
+        } else if (before > 0) {
+            free = freeRanges.set(rangeIndex, new MemoryBlock(range.baseAddress, before));
+        } else if (after > 0) {
+            free = freeRanges.set(rangeIndex, new MemoryBlock(address + length, after));
+        } else {
+            free = freeRanges.remove(rangeIndex);
+        }
+        return new MemorySnapshot(allocated, free);
+    }
+
+    /**
+     * Returns the snapshot after the allocated block with the given base address and length
+     * has been freed. Takes O(log n) expected time.
+     */
+    MemorySnapshot release(int address, int length) {
+        PersistentBlockList allocated = allocatedBlocks.remove(allocatedBlocks.countBelow(address));
+
+        // Merges the block with the free ranges that end right before it and begin right after it
+        int index = freeRanges.countBelow(address);
+        MemoryBlock previous = index > 0 ? freeRanges.getBlock(index - 1) : null;
+        MemoryBlock next = index < freeRanges.getSize() ? freeRanges.getBlock(index) : null;
+        boolean mergePrevious = previous != null && previous.baseAddress + previous.length == address;
+        boolean mergeNext = next != null && next.baseAddress == address + length;
+        PersistentBlockList free;
+        if (mergePrevious && mergeNext) {
+            free = freeRanges.remove(index).set(index - 1,
+                    new MemoryBlock(previous.baseAddress, previous.length + length + next.length));
+        } else if (mergePrevious) {
+            free = freeRanges.set(index - 1, new MemoryBlock(previous.baseAddress, previous.length + length));
+        } else if (mergeNext) {
+            free = freeRanges.set(index, new MemoryBlock(address, length + next.length));
+        } else {
+            free = freeRanges.add(index, new MemoryBlock(address, length));
+        }
+        return new MemorySnapshot(allocated, free);
+    }
+
+    /**
+     * A textual representation of the free ranges and the allocated blocks of this snapshot,
+     * in the same format as MemorySpace.toString.
+     */
+    @Override
+    public String toString() {
+        return freeRanges.toString() + "\n" + allocatedBlocks.toString();
+    }
+}
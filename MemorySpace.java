@@ -4,13 +4,73 @@
  * used, respectively, for creating new blocks and recycling existing blocks.
  */
 public class MemorySpace {
+
+	// The maximal number of removed nodes that each list keeps for reuse
+	private static final int NODE_POOL_CAPACITY = 1024;
+
+	// The maximal number of free blocks that defragStep sorts at once
+	private static final int DEFRAG_RUN_LENGTH = 1024;
+
+	// When the free blocks are kept in a list, free checks the fragmentation threshold only
+	// after (number of free blocks / THRESHOLD_SCAN_RATIO) frees, so that scanning the list
+	// for its longest block costs free O(THRESHOLD_SCAN_RATIO) amortized
+	private static final int THRESHOLD_SCAN_RATIO = 16;
 	
 	// A list of the memory blocks that are presently allocated
 	private LinkedList allocatedList;
 
+	// The nodes of the allocatedList, by the base addresses of their blocks
+	private AddressIndex<Node> allocatedIndex;
+
 	// A list of memory blocks that are presently free
 	private LinkedList freeList;
 
+	// The placement policy used by malloc
+	private final AllocationPolicy policy;
+
+	// The rules by which malloc and free defragment this memory space
+	private final DefragPolicy defragPolicy;
+
+	// The number of frees since the last defragmentation, and the number of times that
+	// each rule of the defragPolicy made this memory space defragment itself
+	private int freesSinceDefrag;
+	private int failureDefrags;
+	private int thresholdDefrags;
+	private int intervalDefrags;
+
+	// Whether the threshold rule of the defragPolicy fires when the fragmentation crosses the
+	// threshold, and the number of frees since free last checked the fragmentation
+	private boolean thresholdArmed = true;
+	private int freesSinceThresholdCheck;
+
+	// The total length of the free blocks, which malloc and free keep up to date
+	private int freeWords;
+
+	// The allocated blocks and the free words at the last malloc or free, published for
+	// threads that read this memory space while it changes
+	private volatile MemorySnapshot snapshot;
+
+	// The free blocks, when the policy keeps them in an index instead of in the freeList
+	private FreeBlockIndex freeIndex;
+
+	// The free blocks, when the policy keeps them in chunks instead of in the freeList
+	private UnrolledLinkedList chunkedFreeList;
+
+	// The node of the freeList where the next NEXT_FIT scan begins, or null for the first node
+	private Node rover;
+
+	// The last node of the prefix of the freeList that defragStep has sorted and merged,
+	// or null if the prefix is empty
+	private Node defragEnd;
+
+	// The last node of the sorted run that follows the prefix, which defragStep is merging
+	// into the prefix, or null if there is no such run
+	private Node defragRunEnd;
+
+	// The node of the prefix after which the next node of the run belongs, as far as the
+	// search for its place got, or null if the search starts at the beginning of the freeList
+	private Node defragFinger;
+
 	/**
 	 * Constructs a new managed memory space of a given maximal size.
 	 * 
@@ -18,14 +78,117 @@ public class MemorySpace {
 	 *            the size of the memory space to be managed
 	 */
 	public MemorySpace(int maxSize) {
+		this(maxSize, AllocationPolicy.FIRST_FIT);
+	}
+
+	/**
+	 * Constructs a new managed memory space of a given maximal size, which
+	 * allocates blocks according to the given placement policy.
+	 * 
+	 * @param maxSize
+	 *            the size of the memory space to be managed
+	 * @param policy
+	 *            the placement policy used by malloc
+	 */
+	public MemorySpace(int maxSize, AllocationPolicy policy) {
+		this(maxSize, policy, DefragPolicy.NEVER);
+	}
+
+	/**
+	 * Constructs a new managed memory space of a given maximal size, which
+	 * allocates blocks according to the given placement policy, and defragments
+	 * itself according to the given defragmentation policy.
+	 * 
+	 * @param maxSize
+	 *            the size of the memory space to be managed
+	 * @param policy
+	 *            the placement policy used by malloc
+	 * @param defragPolicy
+	 *            the rules by which malloc and free defragment the memory space
+	 */
+	public MemorySpace(int maxSize, AllocationPolicy policy, DefragPolicy defragPolicy) {
+		this.policy = policy;
+		this.defragPolicy = defragPolicy;
+		this.freeWords = maxSize;
+		this.snapshot = MemorySnapshot.of(maxSize);
+
 		// Initializes an empty list of allocated blocks.
-		allocatedList = new LinkedList();
+		allocatedList = new LinkedList(NODE_POOL_CAPACITY);
+		allocatedIndex = new AddressIndex<>();
 		
 		// Initializes a free list containing a single block which represents
 		// the entire memory. The base address of this single initial block is
 		// zero, and its length is the given memory size.
-		freeList = new LinkedList();
-		freeList.addLast(new MemoryBlock(0, maxSize));
+		freeList = new LinkedList(NODE_POOL_CAPACITY);
+		MemoryBlock initialBlock = new MemoryBlock(0, maxSize);
+		switch (policy) {
+			case SEGREGATED_FIT:
+				freeIndex = new SegregatedFreeLists();
+				freeIndex.add(initialBlock);
+				break;
+			case ADDRESS_ORDERED_FIT:
+				freeIndex = new FreeBlockTree();
+				freeIndex.add(initialBlock);
+				break;
+			case BEST_FIT:
+				freeIndex = new BestFitTree();
+				freeIndex.add(initialBlock);
+				break;
+			case UNROLLED_FIRST_FIT:
+				chunkedFreeList = new UnrolledLinkedList();
+				chunkedFreeList.addLast(initialBlock);
+				break;
+			default:
+				freeList.addLast(initialBlock);
+				break;
+		}
+	}
+
+	/**
+	 * Gets the placement policy of this memory space.
+	 * 
+	 * @return the placement policy used by malloc
+	 */
+	public AllocationPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the defragmentation policy of this memory space.
+	 * 
+	 * @return the rules by which malloc and free defragment this memory space
+	 */
+	public DefragPolicy getDefragPolicy() {
+		return defragPolicy;
+	}
+
+	/**
+	 * Gets the number of times that malloc defragmented this memory space after it failed.
+	 * 
+	 * @return the number of defragmentations on failure
+	 */
+	public int getFailureDefrags() {
+		return failureDefrags;
+	}
+
+	/**
+	 * Gets the number of times that free defragmented this memory space because its
+	 * fragmentation was above the threshold.
+	 * 
+	 * @return the number of defragmentations above the fragmentation threshold
+	 */
+	public int getThresholdDefrags() {
+		return thresholdDefrags;
+	}
+
+	/**
+	 * Gets the number of times that free defragmented this memory space because the
+	 * interval of frees had passed.
+	 * 
+	 * @return the number of defragmentations after the interval of frees
+	 */
+	public int getIntervalDefrags() {
+		return intervalDefrags;
 	}
 
 	/**
@@ -54,39 +217,211 @@ public class MemorySpace {
 	 * If the length of the found block is exactly the same as the requested length, 
 	 * then the found block is removed from the freeList and appended to the allocatedList.
 	 * 
+	 * If the policy of this memory space keeps the free blocks in an index, the block is
+	 * found by the index instead of by scanning the freeList, and the rest is the same.
+	 * If it keeps them in an UnrolledLinkedList, that list is scanned instead of the freeList.
+	 * 
+	 * If no block is found and the DefragPolicy of this memory space says so, the memory
+	 * space is defragmented, and the block is looked for once more. This is skipped when
+	 * the length is larger than the number of free words, since no defrag can help then.
+	 * 
+	 * A length that is not positive cannot be allocated, since a block of length 0 would
+	 * share its base address with the next allocated block.
+	 * 
 	 * @param length
 	 *        the length (in words) of the memory block that has to be allocated
 	 * @return the base address of the allocated block, or -1 if unable to allocate
 	 */
-	public int malloc(int length) {		
+	public int malloc(int length) {
+		if (length <= 0) {
+			return -1;
+		}
+		int baseAddress = allocate(length);
+		if (baseAddress == -1 && defragPolicy.isOnFailure() && length <= freeWords) {
+			defrag();
+			failureDefrags++;
+			baseAddress = allocate(length);
+		}
+		if (baseAddress != -1) {
+			freeWords -= length;
+			snapshot = snapshot.allocate(baseAddress, length);
+		}
+		return baseAddress;
+	}
+
+	/**
+	 * Allocates a memory block of a requested length according to the placement policy,
+	 * as described in malloc, without defragmenting.
+	 */
+	private int allocate(int length) {
+		if (freeIndex != null) {
+			return mallocFromIndex(length);
+		}
+		if (chunkedFreeList != null) {
+			int baseAddress = chunkedFreeList.takeFirstFit(length);
+			if (baseAddress != -1) {
+				addAllocated(baseAddress, length);
+			}
+			return baseAddress;
+		}
+		if (policy == AllocationPolicy.NEXT_FIT) {
+			return mallocNextFit(length);
+		}
 		ListIterator iterator = freeList.iterator();
 		while (iterator.hasNext()) {
+			Node node = iterator.current;
 			MemoryBlock block = iterator.next();
 
 			if (block.length >= length) {
 				int baseAddress = block.baseAddress;
 
 				// Create a new allocated block
-				MemoryBlock allocatedBlock = new MemoryBlock(baseAddress, length);
-				allocatedList.addLast(allocatedBlock);
+				addAllocated(baseAddress, length);
 
 				// Update or remove the free block
 				if (block.length == length) {
-					freeList.remove(block);
+					removeFree(node);
+				} else {
+					block.baseAddress += length;
+					block.length -= length;
+				}
+				return baseAddress;
+			}
+		}
+		return -1; // Allocation failed
+	}
+
+	/**
+	 * Allocates a memory block of a requested length with the next fit policy.
+	 * The freeList is scanned from the rover to its end, and then from its beginning up to
+	 * the rover. The found block is updated or removed as in first fit, and the rover is
+	 * left at the block that follows the allocation.
+	 */
+	private int mallocNextFit(int length) {
+		Node start = rover != null ? rover : freeList.getFirst();
+		Node current = start;
+		for (int i = 0; i < freeList.getSize(); i++) {
+			MemoryBlock block = current.block;
+			Node next = current.next != null ? current.next : freeList.getFirst();
+			if (block.length >= length) {
+				int baseAddress = block.baseAddress;
+				addAllocated(baseAddress, length);
+				if (block.length == length) {
+					removeFree(current);
+					rover = freeList.getSize() > 0 ? next : null;
 				} else {
 					block.baseAddress += length;
 					block.length -= length;
+					rover = current;
 				}
 				return baseAddress;
 			}
+			current = next;
 		}
 		return -1; // Allocation failed
 	}
 
+	/**
+	 * Allocates a memory block of a requested length from the free block index.
+	 * The found block is taken out of the index, and whatever remains of it after
+	 * the allocation is given back to the index.
+	 */
+	private int mallocFromIndex(int length) {
+		MemoryBlock block = freeIndex.take(length);
+		if (block == null) {
+			return -1; // Allocation failed
+		}
+		int baseAddress = block.baseAddress;
+		addAllocated(baseAddress, length);
+		if (block.length > length) {
+			block.baseAddress += length;
+			block.length -= length;
+			freeIndex.add(block);
+		}
+		return baseAddress;
+	}
+
+	/**
+	 * Appends a new block with the given base address and length to the allocatedList,
+	 * and records its node in the allocatedIndex.
+	 */
+	private void addAllocated(int baseAddress, int length) {
+		allocatedList.addLast(new MemoryBlock(baseAddress, length));
+		allocatedIndex.put(baseAddress, allocatedList.getLast());
+	}
+
+	/**
+	 * Gives the given block back to the free blocks of this memory space.
+	 */
+	private void release(MemoryBlock block) {
+		if (freeIndex != null) {
+			freeIndex.add(block);
+		} else if (chunkedFreeList != null) {
+			chunkedFreeList.addLast(block);
+		} else if (policy == AllocationPolicy.SORTED_FIRST_FIT) {
+			insertSorted(block);
+		} else {
+			freeList.addLast(block);
+		}
+	}
+
+	/**
+	 * Removes the given node from the freeList, and moves the nodes that refer to it
+	 * so they stay in the list.
+	 */
+	private void removeFree(Node node) {
+		if (node == defragEnd) {
+			defragEnd = node.prev;
+		}
+		if (node == defragRunEnd) {
+			defragRunEnd = (node.prev == defragEnd) ? null : node.prev;
+		}
+		if (node == defragFinger) {
+			defragFinger = node.prev;
+		}
+		if (node == rover) {
+			rover = node.next;
+		}
+		freeList.remove(node);
+	}
+
+	/**
+	 * Inserts the given block into the freeList before the first block with a higher
+	 * base address, which keeps a sorted freeList sorted.
+	 */
+	private void insertSorted(MemoryBlock block) {
+		boolean inPrefix = defragEnd != null;
+		LinkedListIterator iterator = freeList.iterator();
+		while (iterator.hasNext()) {
+			Node node = iterator.current;
+			if (iterator.next().baseAddress > block.baseAddress) {
+				if (inPrefix) {
+					// The block may be adjacent to its new neighbours, so the merged prefix
+					// of defragStep has to end before it
+					defragEnd = node.prev;
+					defragFinger = null;
+				}
+				iterator.insertBefore(block);
+				return;
+			}
+			if (node == defragEnd) {
+				inPrefix = false;
+			}
+		}
+		freeList.addLast(block);
+	}
+
 	/**
 	 * Frees the memory block whose base address equals the given address.
 	 * This implementation deletes the block whose base address equals the given 
 	 * address from the allocatedList, and adds it at the end of the free list. 
+	 * The node of the block is found through the allocatedIndex, rather than by
+	 * scanning the allocatedList.
+	 * 
+	 * After the block is freed, the memory space is defragmented if its DefragPolicy
+	 * says so. The fragmentation threshold is checked on every free when the free blocks
+	 * are kept in an index, which finds the longest free block quickly, and only every so
+	 * many frees when they are kept in a list, which has to be scanned.
 	 * 
 	 * @param baseAddress
 	 *            the starting address of the block to freeList
@@ -96,81 +431,390 @@ public class MemorySpace {
 		if (allocatedList.getSize() == 0) {
 			throw new IllegalArgumentException("index must be between 0 and size");
 		}
-	
-		// Use custom ListIterator to traverse the allocatedList
-		ListIterator iterator = new ListIterator(allocatedList.getFirst());
-	
-		// Search for the block in allocatedList
-		while (iterator.hasNext()) {
-			if (iterator.current.block.baseAddress == address) {
-				// Move the block from allocatedList to freeList
-				freeList.addLast(iterator.current.block);
-				allocatedList.remove(iterator.current.block);
-				return; // Successfully freed
-			}
-			iterator.next(); // Move to the next block
+
+		Node node = allocatedIndex.remove(address);
+		if (node == null) {
+			// The block is already free, or the address is invalid
+			return; // Treat invalid address as a successful operation (no exception thrown)
 		}
-	
-		// If not found in allocatedList, check if it is already in freeList
-		ListIterator freeIterator = new ListIterator(freeList.getFirst());
-		while (freeIterator.hasNext()) {
-			if (freeIterator.current.block.baseAddress == address) {
-				// Block is already freed; consider it a success
+
+		// Move the block from allocatedList to freeList
+		freeWords += node.block.length;
+		snapshot = snapshot.release(address, node.block.length);
+		release(node.block);
+		allocatedList.remove(node);
+
+		freesSinceDefrag++;
+		int freeInterval = defragPolicy.getFreeInterval();
+		if (freeInterval > 0 && freesSinceDefrag >= freeInterval) {
+			defrag();
+			intervalDefrags++;
+		} else if (defragPolicy.getFragmentationThreshold() < 1) {
+			checkThreshold();
+		}
+	}
+
+	/**
+	 * Defragments this memory space if its fragmentation has crossed the threshold of the
+	 * DefragPolicy since the threshold rule was last armed, and re-arms the rule once the
+	 * fragmentation is back at or below the re-arm level. When the free blocks are kept in
+	 * a list, the fragmentation is only measured every so many calls.
+	 */
+	private void checkThreshold() {
+		freesSinceThresholdCheck++;
+		if (freeIndex == null) {
+			int blocks = (chunkedFreeList != null) ? chunkedFreeList.getSize() : freeList.getSize();
+			if (freesSinceThresholdCheck * THRESHOLD_SCAN_RATIO < blocks) {
 				return;
 			}
-			freeIterator.next(); // Move to the next block
 		}
-	
-		// If the block is neither in allocatedList nor in freeList, consider it invalid
-		return; // Treat invalid address as a successful operation (no exception thrown)
+		freesSinceThresholdCheck = 0;
+		double fragmentation = fragmentation();
+		if (thresholdArmed && fragmentation > defragPolicy.getFragmentationThreshold()) {
+			defrag();
+			thresholdDefrags++;
+			thresholdArmed = false;
+			fragmentation = fragmentation();
+		}
+		if (fragmentation <= defragPolicy.getRearmFragmentation()) {
+			thresholdArmed = true;
+		}
 	}
 	
+	/**
+	 * Gets the total length of the free blocks of this memory space, which malloc and free
+	 * keep count of.
+	 * 
+	 * @return the number of free words
+	 */
+	public int getFreeWords() {
+		return freeWords;
+	}
+
+	/**
+	 * Gets the length of the longest free block of this memory space. An index finds it
+	 * without scanning all the free blocks; a list is scanned, without copying it.
+	 * 
+	 * @return the length of the longest free block, or 0 if there are no free blocks
+	 */
+	public int getLargestFreeLength() {
+		if (freeIndex != null) {
+			return freeIndex.largestLength();
+		}
+		if (chunkedFreeList != null) {
+			return chunkedFreeList.largestLength();
+		}
+		int largest = 0;
+		for (Node node = freeList.getFirst(); node != null; node = node.next) {
+			largest = Math.max(largest, node.block.length);
+		}
+		return largest;
+	}
+
+	/**
+	 * Measures the external fragmentation of this memory space, as the part of the free
+	 * words that lies outside the longest free block. This takes as long as
+	 * getLargestFreeLength.
+	 * 
+	 * @return a value between 0 (no fragmentation) and 1
+	 */
+	public double fragmentation() {
+		return freeWords == 0 ? 0 : 1 - (double) getLargestFreeLength() / freeWords;
+	}
+
+	/**
+	 * Returns a snapshot of the allocated blocks and the free words of this memory space.
+	 * malloc and free publish a new snapshot after every change, in O(log n) expected time,
+	 * so the snapshot can be taken and read by any thread, without locking, while another
+	 * thread keeps using this memory space. defrag does not publish one, since it merges
+	 * free blocks but does not change which words are free.
+	 * 
+	 * @return the snapshot as of the last malloc or free
+	 */
+	public MemorySnapshot snapshot() {
+		return snapshot;
+	}
+
 	/**
 	 * A textual representation of the free list and the allocated list of this memory space, 
 	 * for debugging purposes.
 	 */
 	@Override
 	public String toString() {
-		return freeList.toString() + "\n" + allocatedList.toString();		
+		return getFreeBlocks().toString() + "\n" + allocatedList.toString();		
+	}
+
+	/**
+	 * Returns the list of free blocks, whether they are kept in the freeList, in an index,
+	 * or in chunks.
+	 */
+	private LinkedList getFreeBlocks() {
+		if (freeIndex != null) {
+			return freeIndex.toList();
+		}
+		if (chunkedFreeList != null) {
+			LinkedList list = new LinkedList();
+			ListIterator iterator = chunkedFreeList.iterator();
+			while (iterator.hasNext()) {
+				list.addLast(iterator.next());
+			}
+			return list;
+		}
+		return freeList;
 	}
 	
 	/**
 	 * Performs defragmentation of this memory space.
-	 * Normally, called by malloc, when it fails to find a memory block of the requested size.
-	 * In this implementation Malloc does not call defrag.
+	 * malloc and free call defrag according to the DefragPolicy of this memory space:
+	 * for example, malloc can call it when it fails to find a memory block of the requested
+	 * size, and then retry. By default, they never call it.
 	 */
 	public void defrag() {
-		// Create a temporary list to hold free blocks
-        java.util.ArrayList<MemoryBlock> tempList = new java.util.ArrayList<>();
-        ListIterator tempIterator = freeList.iterator();
-    
-        // Transfer blocks from freeList to the temporary list
-        while (tempIterator.hasNext()) {
-            tempList.add(tempIterator.next());
-        }
-    
-        // Sort the temporary list by base address
-        tempList.sort((block1, block2) -> Integer.compare(block1.baseAddress, block2.baseAddress));
-    
-        // Clear the freeList and add sorted blocks back
-        freeList = new LinkedList();
-        for (MemoryBlock block : tempList) {
-            freeList.addLast(block);
-        }
+		freesSinceDefrag = 0;
+		if (freeIndex != null) {
+			freeIndex.defrag();
+			return;
+		}
+		if (chunkedFreeList != null) {
+			defragChunks();
+			return;
+		}
+		// A SORTED_FIRST_FIT freeList is always sorted by base address
+		if (policy != AllocationPolicy.SORTED_FIRST_FIT) {
+			sortFreeList();
+		}
     
         // Merge adjacent blocks in the sorted freeList
-        ListIterator iterator = freeList.iterator(); // Use the iterator to traverse the sorted freeList
+        LinkedListIterator iterator = freeList.iterator(); // Use the iterator to traverse the sorted freeList
         MemoryBlock prev = null;
         while (iterator.hasNext()) {
             MemoryBlock current = iterator.next();
             if (prev != null && (prev.baseAddress + prev.length == current.baseAddress)) {
                 prev.length += current.length; // Merge blocks
     
-                // Remove the current block by directly using freeList.remove(current)
-                freeList.remove(current);  // Remove merged block
+                // Remove the merged block through the iterator, in constant time
+                iterator.remove();  // Remove merged block
             } else {
                 prev = current;
             }
         }
+        defragEnd = freeList.getLast();
+        defragRunEnd = null;
+        defragFinger = null;
     }
+
+	/**
+	 * Performs a part of the defragmentation of this memory space, which takes about the
+	 * given time, and returns whether the memory space is fully defragmented.
+	 * Calling this method repeatedly, even with malloc and free calls in between, eventually
+	 * brings the free list to the state that defrag brings it to, without long pauses.
+	 * 
+	 * The free list is defragmented by extending its prefix that is sorted and merged. A run
+	 * of up to DEFRAG_RUN_LENGTH blocks that follow the prefix is sorted in place, and then the
+	 * blocks of the run are merged into the prefix one at a time, by a search that moves
+	 * forward through the prefix one node at a time. The search resumes on the next call when
+	 * it runs out of time, so a call never takes much longer than the given time. malloc and
+	 * free keep the prefix and the run sorted, so their progress is not lost between the calls.
+	 * 
+	 * If the policy of this memory space keeps the free blocks in an index or in chunks,
+	 * they are defragmented at once. A call that returns true restarts the count of frees
+	 * of the DefragPolicy interval, like defrag does.
+	 * 
+	 * @param budgetNanos
+	 *        the time, in nanoseconds, that this call may spend
+	 * @return true if the memory space is fully defragmented, false if more calls are needed
+	 */
+	public boolean defragStep(long budgetNanos) {
+		if (freeIndex != null || chunkedFreeList != null) {
+			defrag();
+			return true;
+		}
+		long start = System.nanoTime();
+		for (int steps = 1; ; steps++) {
+			Node pending = (defragEnd == null) ? freeList.getFirst() : defragEnd.next;
+			if (pending == null) {
+				freesSinceDefrag = 0;
+				return true;
+			}
+			if (defragRunEnd == null) {
+				sortRun(pending);
+				steps = 0;
+			}
+			// Reading the clock is slower than a step, so it is only read every 32 steps
+			if ((steps & 31) == 0 && System.nanoTime() - start >= budgetNanos) {
+				return false;
+			}
+			MemoryBlock block = pending.block;
+			Node next = (defragFinger == null) ? freeList.getFirst() : defragFinger.next;
+			if (defragFinger != defragEnd && next.block.baseAddress < block.baseAddress) {
+				defragFinger = next;
+				continue;
+			}
+
+			Node previous = defragFinger;
+			if (previous == defragEnd) {
+				// The pending block is already in place
+				if (pending == defragRunEnd) {
+					defragRunEnd = null;
+				}
+				if (previous != null && previous.block.baseAddress + previous.block.length == block.baseAddress) {
+					previous.block.length += block.length;
+					removeFree(pending);
+				} else {
+					defragEnd = pending;
+					defragFinger = pending;
+				}
+				continue;
+			}
+
+			// The pending block belongs between the previous node and its successor in the prefix
+			Node successor = next;
+			Node merged;
+			if (previous != null && previous.block.baseAddress + previous.block.length == block.baseAddress) {
+				previous.block.length += block.length;
+				removeFree(pending);
+				merged = previous;
+			} else {
+				boolean wasRover = (pending == rover);
+				removeFree(pending);
+				freeList.insertBefore(successor, block);
+				merged = successor.prev;
+				if (wasRover) {
+					rover = merged;
+				}
+			}
+			if (merged.block.baseAddress + merged.block.length == successor.block.baseAddress) {
+				merged.block.length += successor.block.length;
+				removeFree(successor);
+			}
+			defragFinger = merged;
+		}
+	}
+
+	/**
+	 * Sorts the run of up to DEFRAG_RUN_LENGTH nodes of the freeList that starts at the
+	 * given node by base address, in place, and starts merging it into the prefix.
+	 */
+	private void sortRun(Node first) {
+		int[] baseAddresses = new int[DEFRAG_RUN_LENGTH];
+		int[] lengths = new int[DEFRAG_RUN_LENGTH];
+		int size = 0;
+		Node last = first;
+		for (Node node = first; node != null && size < DEFRAG_RUN_LENGTH; node = node.next) {
+			baseAddresses[size] = node.block.baseAddress;
+			lengths[size] = node.block.length;
+			size++;
+			last = node;
+		}
+		BlockSorter.sortByBaseAddress(baseAddresses, lengths, size);
+		Node node = first;
+		for (int i = 0; i < size; i++) {
+			node.block.baseAddress = baseAddresses[i];
+			node.block.length = lengths[i];
+			node = node.next;
+		}
+		defragRunEnd = last;
+		defragFinger = null;
+	}
+
+	/**
+	 * Performs the same defragmentation as defrag, as fork-join tasks: the free blocks are
+	 * sorted with a parallel sort, chunks of them are merged concurrently, and the merged
+	 * chunks are stitched together. The resulting free list is the one that defrag produces.
+	 * This only pays off for memory spaces with very many free blocks.
+	 */
+	public void parallelDefrag() {
+		if (freeIndex != null || chunkedFreeList != null) {
+			defrag();
+			return;
+		}
+		freesSinceDefrag = 0;
+		int size = freeList.getSize();
+		int[] baseAddresses = new int[size];
+		int[] lengths = new int[size];
+		LinkedListIterator iterator = freeList.iterator();
+		for (int i = 0; iterator.hasNext(); i++) {
+			MemoryBlock block = iterator.next();
+			baseAddresses[i] = block.baseAddress;
+			lengths[i] = block.length;
+		}
+
+		int merged = ParallelCoalescer.sortAndCoalesce(baseAddresses, lengths, size);
+
+		// Write the merged blocks into the first nodes of the freeList, and remove the rest
+		iterator = freeList.iterator();
+		for (int i = 0; iterator.hasNext(); i++) {
+			MemoryBlock block = iterator.next();
+			if (i < merged) {
+				block.baseAddress = baseAddresses[i];
+				block.length = lengths[i];
+			} else {
+				iterator.remove();
+			}
+		}
+		rover = null;
+		defragEnd = freeList.getLast();
+		defragRunEnd = null;
+		defragFinger = null;
+	}
+
+	/**
+	 * Defragments the chunked free list: its blocks are sorted by base address and merged,
+	 * as in defrag, and the list is rebuilt from the merged blocks.
+	 */
+	private void defragChunks() {
+		int size = chunkedFreeList.getSize();
+		int[] baseAddresses = new int[size];
+		int[] lengths = new int[size];
+		ListIterator iterator = chunkedFreeList.iterator();
+		for (int i = 0; iterator.hasNext(); i++) {
+			MemoryBlock block = iterator.next();
+			baseAddresses[i] = block.baseAddress;
+			lengths[i] = block.length;
+		}
+		BlockSorter.sortByBaseAddress(baseAddresses, lengths, size);
+
+		chunkedFreeList.clear();
+		MemoryBlock prev = null;
+		for (int i = 0; i < size; i++) {
+			if (prev != null && prev.baseAddress + prev.length == baseAddresses[i]) {
+				prev.length += lengths[i];
+			} else {
+				if (prev != null) {
+					chunkedFreeList.addLast(prev);
+				}
+				prev = new MemoryBlock(baseAddresses[i], lengths[i]);
+			}
+		}
+		if (prev != null) {
+			chunkedFreeList.addLast(prev);
+		}
+	}
+
+	/**
+	 * Sorts the freeList by base address, reusing its nodes and blocks.
+	 * The base addresses and lengths are radix sorted as primitive arrays, and then written
+	 * back into the blocks of the freeList, in order.
+	 */
+	private void sortFreeList() {
+		int size = freeList.getSize();
+		int[] baseAddresses = new int[size];
+		int[] lengths = new int[size];
+		ListIterator iterator = freeList.iterator();
+		for (int i = 0; iterator.hasNext(); i++) {
+			MemoryBlock block = iterator.next();
+			baseAddresses[i] = block.baseAddress;
+			lengths[i] = block.length;
+		}
+
+		BlockSorter.sortByBaseAddress(baseAddresses, lengths, size);
+
+		iterator = freeList.iterator();
+		for (int i = 0; iterator.hasNext(); i++) {
+			MemoryBlock block = iterator.next();
+			block.baseAddress = baseAddresses[i];
+			block.length = lengths[i];
+		}
+		rover = null;
+	}
 }
@@ -0,0 +1,122 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts and merges free blocks, represented as parallel arrays of base addresses and lengths,
+ * using the fork-join pool. The blocks are sorted with a parallel sort, and then divided into
+ * chunks that are merged concurrently, each by its own task. A final sequential pass stitches
+ * the merged chunks together, merging the last block of a chunk with the first block of the
+ * next one when they are adjacent. The result is exactly the one of a sequential sort and merge.
+ */
+public final class ParallelCoalescer {
+
+    // Chunks are never shorter than this, so tasks are not too fine-grained
+    private static final int MIN_CHUNK_LENGTH = 4096;
+
+    private ParallelCoalescer() {
+    }
+
+    /**
+     * Sorts the first size blocks by base address, with a stable sort, and merges every block
+     * with the block that precedes it when the preceding block ends where it begins.
+     * The merged blocks are stored at the beginning of the arrays.
+     * @param baseAddresses the base addresses of the blocks
+     * @param lengths the lengths of the blocks
+     * @param size the number of blocks
+     * @return the number of blocks after merging
+     */
+    public static int sortAndCoalesce(int[] baseAddresses, int[] lengths, int size) {
+        if (size == 0) {
+            return 0;
+        }
+        // Sorting the base addresses together with the original positions keeps the sort stable,
+        // and tells where the length of every sorted block is
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) baseAddresses[i] << 32) | i;
+        }
+        java.util.Arrays.parallelSort(keys);
+        int[] originalLengths = java.util.Arrays.copyOf(lengths, size);
+
+        int chunkLength = Math.max(MIN_CHUNK_LENGTH,
+                (size + 4 * ForkJoinPool.getCommonPoolParallelism() - 1) / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        int chunkCount = (size + chunkLength - 1) / chunkLength;
+        int[] mergedCounts = new int[chunkCount];
+        ForkJoinPool.commonPool().invoke(new ChunkTask(keys, originalLengths, baseAddresses, lengths,
+                size, chunkLength, mergedCounts, 0, chunkCount));
+
+        // Stitch the chunks, moving their merged blocks to the beginning of the arrays
+        int merged = 0;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int from = chunk * chunkLength;
+            for (int i = from; i < from + mergedCounts[chunk]; i++) {
+                if (merged > 0 && baseAddresses[merged - 1] + lengths[merged - 1] == baseAddresses[i]) {
+                    lengths[merged - 1] += lengths[i];
+                } else {
+                    baseAddresses[merged] = baseAddresses[i];
+                    lengths[merged] = lengths[i];
+                    merged++;
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Unpacks and merges the sorted blocks of a range of chunks. A task with several chunks
+     * splits them between two subtasks, and a task with one chunk merges it.
+     */
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] keys;
+        private final int[] originalLengths;
+        private final int[] baseAddresses;
+        private final int[] lengths;
+        private final int size;
+        private final int chunkLength;
+        private final int[] mergedCounts;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(long[] keys, int[] originalLengths, int[] baseAddresses, int[] lengths, int size,
+                int chunkLength, int[] mergedCounts, int fromChunk, int toChunk) {
+            this.keys = keys;
+            this.originalLengths = originalLengths;
+            this.baseAddresses = baseAddresses;
+            this.lengths = lengths;
+            this.size = size;
+            this.chunkLength = chunkLength;
+            this.mergedCounts = mergedCounts;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(keys, originalLengths, baseAddresses, lengths, size,
+                                chunkLength, mergedCounts, fromChunk, middle),
+                        new ChunkTask(keys, originalLengths, baseAddresses, lengths, size,
+                                chunkLength, mergedCounts, middle, toChunk));
+                return;
+            }
+            int from = fromChunk * chunkLength;
+            int to = Math.min(size, from + chunkLength);
+            int merged = from;
+            for (int i = from; i < to; i++) {
+                int baseAddress = (int) (keys[i] >> 32);
+                int length = originalLengths[(int) keys[i]];
+                if (merged > from && baseAddresses[merged - 1] + lengths[merged - 1] == baseAddress) {
+                    lengths[merged - 1] += length;
+                } else {
+                    baseAddresses[merged] = baseAddress;
+                    lengths[merged] = length;
+                    merged++;
+                }
+            }
+            mergedCounts[fromChunk] = merged - from;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents an immutable list of memory blocks. Every modifying operation leaves this list
+ * unchanged and returns a new version of it, which shares all the unchanged structure with
+ * the old version. The list is implemented as a treap ordered by position, in which every
+ * node records the size of its subtree: an operation copies only the O(log n) expected nodes
+ * on its path, so getBlock, add, set and remove by index all take O(log n) expected time.
+ *
+ * Since a version never changes, taking a snapshot is just keeping a reference to it, and any
+ * number of threads can read a version without locking while a writer keeps creating newer
+ * versions. A writer that shares its latest version should publish it through a volatile field.
+ *
+ * The list stores the base address and the length of each block, not the MemoryBlock objects,
+ * which are mutable. The blocks that the list returns are new copies.
+ */
+public final class PersistentBlockList {
+
+    /**
+     * Represents an immutable node of the treap.
+     */
+    private static final class TreeNode {
+        final int baseAddress;  // the base address of the block at this node
+        final int length;       // the length of the block at this node
+        final int priority;     // heap priority, which keeps the tree balanced in expectation
+        final int size;         // the number of nodes in the subtree rooted at this node
+        final int height;       // the number of nodes on the longest path down from this node
+        final TreeNode left;
+        final TreeNode right;
+
+        TreeNode(int baseAddress, int length, int priority, TreeNode left, TreeNode right) {
+            this.baseAddress = baseAddress;
+            this.length = length;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.size = 1 + size(left) + size(right);
+            this.height = 1 + Math.max(height(left), height(right));
+        }
+
+        /** Returns a copy of this node with the given children */
+        TreeNode with(TreeNode left, TreeNode right) {
+            return new TreeNode(baseAddress, length, priority, left, right);
+        }
+    }
+
+    private static final PersistentBlockList EMPTY = new PersistentBlockList(null);
+
+    private final TreeNode root;
+
+    private PersistentBlockList(TreeNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the empty list.
+     * @return an empty list
+     */
+    public static PersistentBlockList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a list with the blocks of the given list, in the same order.
+     * The treap is built bottom-up in O(n) time, with one node per block: the blocks are
+     * given random priorities, the shape of the treap is found with a stack of the nodes
+     * on its rightmost path, and the immutable nodes are then created from the leaves up.
+     * The given list must not be modified while it is copied.
+     * @param list the list to copy
+     * @return a persistent copy of the list
+     */
+    public static PersistentBlockList copyOf(LinkedList list) {
+        int size = list.getSize();
+        int[] baseAddresses = new int[size];
+        int[] lengths = new int[size];
+        int[] priorities = new int[size];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ListIterator iterator = list.iterator();
+        for (int i = 0; iterator.hasNext(); i++) {
+            MemoryBlock block = iterator.next();
+            baseAddresses[i] = block.baseAddress;
+            lengths[i] = block.length;
+            priorities[i] = random.nextInt();
+        }
+
+        // Finds the children of every node. The stack holds the rightmost path of the treap
+        // of the nodes seen so far; a new node becomes the right child of the last node on the
+        // path with a higher priority, and the nodes it pops become its left subtree.
+        int[] left = new int[size];
+        int[] right = new int[size];
+        java.util.Arrays.fill(left, -1);
+        java.util.Arrays.fill(right, -1);
+        int[] stack = new int[size];
+        int top = 0;
+        for (int i = 0; i < size; i++) {
+            int popped = -1;
+            while (top > 0 && priorities[stack[top - 1]] < priorities[i]) {
+                popped = stack[--top];
+            }
+            left[i] = popped;
+            if (top > 0) {
+                right[stack[top - 1]] = i;
+            }
+            stack[top++] = i;
+        }
+        if (size == 0) {
+            return EMPTY;
+        }
+        return new PersistentBlockList(build(stack[0], baseAddresses, lengths, priorities, left, right));
+    }
+
+    /** Creates the immutable subtree rooted at the given node of copyOf, or null if it is -1 */
+    private static TreeNode build(int i, int[] baseAddresses, int[] lengths, int[] priorities,
+            int[] left, int[] right) {
+        if (i < 0) {
+            return null;
+        }
+        return new TreeNode(baseAddresses[i], lengths[i], priorities[i],
+                build(left[i], baseAddresses, lengths, priorities, left, right),
+                build(right[i], baseAddresses, lengths, priorities, left, right));
+    }
+
+    /**
+     * Gets the number of elements in the list.
+     * @return the size of the list
+     */
+    public int getSize() {
+        return size(root);
+    }
+
+    /**
+     * Gets a copy of the memory block at the given index.
+     * @param index the index of the block to retrieve
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     * @return a copy of the memory block at the given index
+     */
+    public MemoryBlock getBlock(int index) {
+        if (index < 0 || index >= getSize()) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        TreeNode current = root;
+        while (true) {
+            int leftSize = size(current.left);
+            if (index < leftSize) {
+                current = current.left;
+            } else if (index == leftSize) {
+                return new MemoryBlock(current.baseAddress, current.length);
+            } else {
+                index -= leftSize + 1;
+                current = current.right;
+            }
+        }
+    }
+
+    /**
+     * Finds the index of the first block that equals the given memory block.
+     * @param block the memory block to locate
+     * @return the index of the block, or -1 if not found
+     */
+    public int indexOf(MemoryBlock block) {
+        int index = 0;
+        ListIterator iterator = iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().equals(block)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the blocks whose base addresses are lower than the given address, in a list
+     * whose blocks are sorted by base address. This is the index at which a block with that
+     * base address belongs, and it is found in O(log n) expected time.
+     * @param address the address to look for
+     * @return the number of blocks with lower base addresses
+     */
+    public int countBelow(int address) {
+        int count = 0;
+        TreeNode current = root;
+        while (current != null) {
+            if (current.baseAddress < address) {
+                count += size(current.left) + 1;
+                current = current.right;
+            } else {
+                current = current.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a list with the specified memory block added to the beginning of this list.
+     * @param block the memory block to add
+     * @return the new version of the list
+     */
+    public PersistentBlockList addFirst(MemoryBlock block) {
+        return add(0, block);
+    }
+
+    /**
+     * Returns a list with the specified memory block added to the end of this list.
+     * @param block the memory block to add
+     * @return the new version of the list
+     */
+    public PersistentBlockList addLast(MemoryBlock block) {
+        return add(getSize(), block);
+    }
+
+    /**
+     * Returns a list with the specified memory block inserted at the specified index.
+     * @param index the position to insert the block
+     * @param block the memory block to insert
+     * @return the new version of the list
+     */
+    public PersistentBlockList add(int index, MemoryBlock block) {
+        if (index < 0 || index > getSize()) {
+            throw new IllegalArgumentException("Index out of bounds");
+        }
+        TreeNode node = new TreeNode(block.baseAddress, block.length,
+                ThreadLocalRandom.current().nextInt(), null, null);
+        TreeNode[] parts = split(root, index);
+        return new PersistentBlockList(merge(merge(parts[0], node), parts[1]));
+    }
+
+    /**
+     * Returns a list with the block at the specified index replaced by the given block.
+     * @param index the index of the block to replace
+     * @param block the new block
+     * @return the new version of the list
+     */
+    public PersistentBlockList set(int index, MemoryBlock block) {
+        if (index < 0 || index >= getSize()) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        return new PersistentBlockList(set(root, index, block));
+    }
+
+    /**
+     * Returns a list without the block at the specified index.
+     * @param index the index of the block to remove
+     * @return the new version of the list
+     */
+    public PersistentBlockList remove(int index) {
+        if (index < 0 || index >= getSize()) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        TreeNode[] parts = split(root, index);
+        TreeNode[] rest = split(parts[1], 1);
+        return new PersistentBlockList(merge(parts[0], rest[1]));
+    }
+
+    /**
+     * Returns a list without the first block that equals the specified memory block.
+     * @param block the memory block to remove
+     * @return the new version of the list
+     */
+    public PersistentBlockList remove(MemoryBlock block) {
+        return remove(indexOf(block));
+    }
+
+    /**
+     * A textual representation of this list, in the same format as LinkedList.toString.
+     * @return a string representing the list
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        ListIterator iterator = iterator();
+        while (iterator.hasNext()) {
+            s.append(iterator.next()).append(' ');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns an iterator over copies of the blocks in this list, in proper sequence.
+     * The iterator cannot modify the list.
+     * @return a ListIterator over the blocks in this list
+     */
+    public ListIterator iterator() {
+        return new ListIterator((Node) null) {
+            // The nodes whose blocks and right subtrees are still to be visited, innermost last
+            private final TreeNode[] stack = new TreeNode[height(root)];
+            private int depth = 0;
+
+            {
+                pushLeftPath(root);
+            }
+
+            private void pushLeftPath(TreeNode node) {
+                for (; node != null; node = node.left) {
+                    stack[depth++] = node;
+                }
+            }
+
+            public boolean hasNext() {
+                return depth > 0;
+            }
+
+            public MemoryBlock next() {
+                TreeNode node = stack[--depth];
+                stack[depth] = null;
+                pushLeftPath(node.right);
+                return new MemoryBlock(node.baseAddress, node.length);
+            }
+        };
+    }
+
+    /** Returns the number of nodes in the given subtree, which may be empty */
+    private static int size(TreeNode node) {
+        return (node == null) ? 0 : node.size;
+    }
+
+    /** Returns the height of the given subtree, which may be empty */
+    private static int height(TreeNode node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    /**
+     * Splits the given subtree into two new subtrees: one with its first count nodes,
+     * and one with the rest. The given subtree is left unchanged.
+     */
+    private static TreeNode[] split(TreeNode node, int count) {
+        if (node == null) {
+            return new TreeNode[] { null, null };
+        }
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            TreeNode[] parts = split(node.left, count);
+            parts[1] = node.with(parts[1], node.right);
+            return parts;
+        }
+        TreeNode[] parts = split(node.right, count - leftSize - 1);
+        parts[0] = node.with(node.left, parts[0]);
+        return parts;
+    }
+
+    /**
+     * Returns a new subtree with the nodes of the first subtree followed by the nodes of the
+     * second one. The given subtrees are left unchanged.
+     */
+    private static TreeNode merge(TreeNode first, TreeNode second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return first.with(first.left, merge(first.right, second));
+        }
+        return second.with(merge(first, second.left), second.right);
+    }
+
+    /** Returns a copy of the given subtree in which the block at the given index is replaced */
+    private static TreeNode set(TreeNode node, int index, MemoryBlock block) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return node.with(set(node.left, index, block), node.right);
+        }
+        if (index > leftSize) {
+            return node.with(node.left, set(node.right, index - leftSize - 1, block));
+        }
+        return new TreeNode(block.baseAddress, block.length, node.priority, node.left, node.right);
+    }
+}
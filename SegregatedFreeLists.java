@@ -0,0 +1,141 @@
+/**
+ * Represents the free blocks of a memory space, binned into power-of-two size classes.
+ * Size class k holds the blocks whose length is between 2^k and 2^(k+1) - 1 words.
+ * A bit mask records which classes are non-empty, so a fitting class is found with a
+ * single bit operation instead of a scan of all the free blocks.
+ */
+public class SegregatedFreeLists implements FreeBlockIndex {
+
+    private static final int CLASSES = 32;
+
+    private final LinkedList[] bins;  // bins[k] holds the free blocks of size class k
+    private int nonEmpty;             // bit k is set if bins[k] is not empty
+
+    /**
+     * Constructs an empty set of size classes.
+     */
+    public SegregatedFreeLists() {
+        bins = new LinkedList[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            bins[i] = new LinkedList();
+        }
+        nonEmpty = 0;
+    }
+
+    /**
+     * Returns the size class of a block of the given length.
+     */
+    private static int classOf(int length) {
+        return length <= 1 ? 0 : 31 - Integer.numberOfLeadingZeros(length);
+    }
+
+    /**
+     * Returns the smallest size class whose blocks are all at least the given length.
+     */
+    private static int fittingClassOf(int length) {
+        return length <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+
+    /**
+     * Removes a free block whose length is at least the given length.
+     * Every block in the smallest non-empty class at or above the fitting class of the
+     * request is long enough, so the first block of that class is taken. Only if there
+     * is no such class, the class of the request itself is scanned, since some of its
+     * blocks may still be long enough.
+     * @param length the requested length, in words
+     * @return the removed block, or null if no block is long enough
+     */
+    public MemoryBlock take(int length) {
+        int fitting = fittingClassOf(length);
+        int candidates = fitting < CLASSES ? nonEmpty & (-1 << fitting) : 0;
+        if (candidates != 0) {
+            int k = Integer.numberOfTrailingZeros(candidates);
+            Node node = bins[k].getFirst();
+            unlink(k, node);
+            return node.block;
+        }
+        int k = classOf(length);
+        if (k != fitting) {
+            ListIterator iterator = bins[k].iterator();
+            while (iterator.hasNext()) {
+                Node node = iterator.current;
+                iterator.next();
+                if (node.block.length >= length) {
+                    unlink(k, node);
+                    return node.block;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the given free block to the beginning of its size class.
+     * @param block the free block to add
+     */
+    public void add(MemoryBlock block) {
+        int k = classOf(block.length);
+        bins[k].addFirst(block);
+        nonEmpty |= 1 << k;
+    }
+
+    /**
+     * Removes the given node from size class k, and clears the bit of the class if it became empty.
+     */
+    private void unlink(int k, Node node) {
+        bins[k].remove(node);
+        if (bins[k].getSize() == 0) {
+            nonEmpty &= ~(1 << k);
+        }
+    }
+
+    /**
+     * Gets the length of the longest free block. Only the largest non-empty size class is
+     * scanned, since every block of a lower class is shorter than all of its blocks.
+     * @return the length of the longest block, or 0 if there are no blocks
+     */
+    public int largestLength() {
+        if (nonEmpty == 0) {
+            return 0;
+        }
+        int largest = 0;
+        ListIterator iterator = bins[31 - Integer.numberOfLeadingZeros(nonEmpty)].iterator();
+        while (iterator.hasNext()) {
+            largest = Math.max(largest, iterator.next().length);
+        }
+        return largest;
+    }
+
+    /**
+     * Merges adjacent free blocks, and redistributes the merged blocks into their size classes.
+     */
+    public void defrag() {
+        java.util.ArrayList<MemoryBlock> tempList = new java.util.ArrayList<>();
+        for (int k = 0; k < CLASSES; k++) {
+            ListIterator iterator = bins[k].iterator();
+            while (iterator.hasNext()) {
+                tempList.add(iterator.next());
+            }
+            bins[k] = new LinkedList();
+        }
+        nonEmpty = 0;
+        for (MemoryBlock block : FreeBlockIndex.coalesce(tempList)) {
+            add(block);
+        }
+    }
+
+    /**
+     * Returns the free blocks, from the smallest size class to the largest.
+     * @return a new list containing the free blocks
+     */
+    public LinkedList toList() {
+        LinkedList list = new LinkedList();
+        for (int k = 0; k < CLASSES; k++) {
+            ListIterator iterator = bins[k].iterator();
+            while (iterator.hasNext()) {
+                list.addLast(iterator.next());
+            }
+        }
+        return list;
+    }
+}
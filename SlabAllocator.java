@@ -0,0 +1,191 @@
+/**
+ * Represents a slab layer on top of a memory space. Requests of a few fixed, frequently
+ * used lengths are served from slabs: large blocks, allocated from the memory space,
+ * that are carved into equal slots. The used slots of a slab are tracked by a bitmap,
+ * so such requests are served and freed in O(1) without touching the lists of the
+ * memory space. A slab that becomes empty is freed back to the memory space.
+ * Requests of any other length are passed on to the memory space.
+ */
+public class SlabAllocator {
+
+    /**
+     * Represents a slab: a block of the memory space divided into equal slots.
+     */
+    private static class Slab {
+        final int cache;        // the index of the slot length of this slab
+        final int baseAddress;  // the base address of the slab in the memory space
+        final long[] used;      // bit i is set if slot i is allocated
+        int usedCount;          // number of allocated slots
+        Slab prev;              // the previous slab in the list of partial slabs
+        Slab next;              // the next slab in the list of partial slabs
+
+        Slab(int cache, int baseAddress, int slots) {
+            this.cache = cache;
+            this.baseAddress = baseAddress;
+            this.used = new long[(slots + 63) >>> 6];
+        }
+    }
+
+    private final MemorySpace space;     // the underlying memory space
+    private final int[] slotLengths;     // the lengths that are served from slabs
+    private final int slotsPerSlab;      // number of slots in each slab
+    private final Slab[] partialSlabs;   // partialSlabs[c] is the first slab of length c that has a free slot
+
+    // The slabs of the allocated slots, by slot address
+    private final AddressIndex<Slab> slabOfSlot;
+
+    // The live slabs, by the base addresses of their blocks in the memory space
+    private final AddressIndex<Slab> slabOfBase;
+
+    /**
+     * Constructs a slab layer on top of the given memory space.
+     * 
+     * @param space
+     *        the memory space from which the slabs are allocated
+     * @param slotLengths
+     *        the lengths (in words) that are served from slabs
+     * @param slotsPerSlab
+     *        the number of slots in each slab
+     * @throws IllegalArgumentException if a slot length or slotsPerSlab is not positive, or
+     *         if a slab of some slot length would be longer than Integer.MAX_VALUE words
+     */
+    public SlabAllocator(MemorySpace space, int[] slotLengths, int slotsPerSlab) {
+        if (slotsPerSlab <= 0) {
+            throw new IllegalArgumentException("slotsPerSlab must be positive");
+        }
+        for (int length : slotLengths) {
+            if (length <= 0) {
+                throw new IllegalArgumentException("slot lengths must be positive");
+            }
+            if ((long) length * slotsPerSlab > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("slab of slot length " + length + " is too long");
+            }
+        }
+        this.space = space;
+        this.slotLengths = slotLengths.clone();
+        this.slotsPerSlab = slotsPerSlab;
+        this.partialSlabs = new Slab[slotLengths.length];
+        this.slabOfSlot = new AddressIndex<>();
+        this.slabOfBase = new AddressIndex<>();
+    }
+
+    /**
+     * Returns the index of the given slot length, or -1 if it is not served from slabs.
+     */
+    private int cacheOf(int length) {
+        for (int c = 0; c < slotLengths.length; c++) {
+            if (slotLengths[c] == length) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Allocates a memory block of a requested length (in words). If the length is one of
+     * the slot lengths, a free slot of a partial slab is used, and a new slab is allocated
+     * from the memory space only if there is no partial slab.
+     * 
+     * @param length
+     *        the length (in words) of the memory block that has to be allocated
+     * @return the base address of the allocated block, or -1 if unable to allocate
+     */
+    public int malloc(int length) {
+        int c = cacheOf(length);
+        if (c < 0) {
+            return space.malloc(length);
+        }
+        Slab slab = partialSlabs[c];
+        if (slab == null) {
+            int baseAddress = space.malloc(length * slotsPerSlab);
+            if (baseAddress == -1) {
+                return -1; // Allocation failed
+            }
+            slab = new Slab(c, baseAddress, slotsPerSlab);
+            slabOfBase.put(baseAddress, slab);
+            link(slab);
+        }
+        int word = 0;
+        while (slab.used[word] == -1L) {
+            word++;
+        }
+        int slot = (word << 6) + Long.numberOfTrailingZeros(~slab.used[word]);
+        slab.used[word] |= 1L << slot;
+        slab.usedCount++;
+        if (slab.usedCount == slotsPerSlab) {
+            unlink(slab);
+        }
+        int address = slab.baseAddress + slot * length;
+        slabOfSlot.put(address, slab);
+        return address;
+    }
+
+    /**
+     * Frees the memory block whose base address equals the given address. If the block is
+     * a slot, its bit is cleared, and its slab is freed back to the memory space if it has
+     * become empty. Freeing a slot that is already free does nothing, like freeing an
+     * address that is not allocated in the memory space.
+     * 
+     * @param address
+     *            the base address of the block to free
+     */
+    public void free(int address) {
+        Slab slab = slabOfSlot.remove(address);
+        if (slab == null) {
+            // The first slot of a live slab has the base address of the slab itself, which
+            // must not be freed in the memory space while other slots are in use
+            if (slabOfBase.get(address) == null) {
+                space.free(address);
+            }
+            return;
+        }
+        int slot = (address - slab.baseAddress) / slotLengths[slab.cache];
+        slab.used[slot >>> 6] &= ~(1L << slot);
+        if (slab.usedCount == slotsPerSlab) {
+            link(slab);
+        }
+        slab.usedCount--;
+        if (slab.usedCount == 0) {
+            unlink(slab);
+            slabOfBase.remove(slab.baseAddress);
+            space.free(slab.baseAddress);
+        }
+    }
+
+    /**
+     * Adds the given slab to the beginning of the partial slabs of its slot length.
+     */
+    private void link(Slab slab) {
+        slab.prev = null;
+        slab.next = partialSlabs[slab.cache];
+        if (slab.next != null) {
+            slab.next.prev = slab;
+        }
+        partialSlabs[slab.cache] = slab;
+    }
+
+    /**
+     * Removes the given slab from the partial slabs of its slot length.
+     */
+    private void unlink(Slab slab) {
+        if (slab.prev != null) {
+            slab.prev.next = slab.next;
+        } else {
+            partialSlabs[slab.cache] = slab.next;
+        }
+        if (slab.next != null) {
+            slab.next.prev = slab.prev;
+        }
+        slab.prev = null;
+        slab.next = null;
+    }
+
+    /**
+     * A textual representation of the underlying memory space, for debugging purposes.
+     * Each slab appears as a single allocated block.
+     */
+    @Override
+    public String toString() {
+        return space.toString();
+    }
+}
@@ -9,9 +9,38 @@ public class TestMemorySpace {
         testSimpleAllocation();
         testMultipleAllocations();
         testAllocationFailure();
+        testZeroLengthAllocation();
         testFree();
         testDefrag();
         testComplexScenario();
+        testSegregatedFit();
+        testBuddyMemorySpace();
+        testAddressOrderedFit();
+        testAddressOrderedFitMatchesFirstFit();
+        testSortedFirstFit();
+        testBlockSorter();
+        testParallelDefragMatchesDefrag();
+        testDefragStep();
+        testDefragPolicy();
+        testFreeWordsCount();
+        testBestFit();
+        testTlsfMemorySpace();
+        testSlabAllocator();
+        testSlabAllocatorDoubleFree();
+        testArrayMemorySpaceMatchesMemorySpace();
+        testArrayMemorySpaceAllocationFree();
+        testBlockArrayListMatchesLinkedList();
+        testLinkedListNodePool();
+        testLinkedListForeignNode();
+        testIndexableSkipListMatchesLinkedList();
+        testPersistentBlockListSnapshots();
+        testMemorySpaceSnapshots();
+        testUnrolledLinkedListMatchesLinkedList();
+        testUnrolledFirstFitMatchesFirstFit();
+        testListIteratorModification();
+        testLinkedListStreams();
+        testLinkedListSplice();
+        testConcurrentBlockListStress();
 
         System.out.println("All tests completed successfully!");
     }
@@ -55,6 +84,20 @@ public class TestMemorySpace {
         assertString(expected, memory.toString(), "State after allocation failure");
     }
 
+    private static void testZeroLengthAllocation() {
+        MemorySpace memory = new MemorySpace(100);
+        assertEqual(-1, memory.malloc(0), "Zero length allocation");
+        assertEqual(-1, memory.malloc(-5), "Negative length allocation");
+        int address = memory.malloc(10);
+        memory.free(address);
+        memory.defrag();
+        assertString("(0 , 100)\n\n", memory.toString(), "State after zero length allocation");
+
+        ArrayMemorySpace arrays = new ArrayMemorySpace(100);
+        assertEqual(-1, arrays.malloc(0), "Array zero length allocation");
+        assertString("(0 , 100) \n", arrays.toString(), "Array state after zero length allocation");
+    }
+
     private static void testFree() {
         MemorySpace memory = new MemorySpace(100);
         int addr1 = memory.malloc(20);
@@ -98,12 +141,998 @@ public class TestMemorySpace {
         assertString(expected, memory.toString(), "Complex scenario state");
     }
 
+    private static void testSegregatedFit() {
+        MemorySpace memory = new MemorySpace(100, AllocationPolicy.SEGREGATED_FIT);
+        int addr1 = memory.malloc(20);
+        int addr2 = memory.malloc(30);
+        memory.malloc(10);
+        assertEqual(0, addr1, "Segregated first allocation");
+        assertEqual(20, addr2, "Segregated second allocation");
+
+        memory.free(addr1);
+        memory.free(addr2);
+        int addr4 = memory.malloc(25);
+        assertEqual(60, addr4, "Segregated allocation from a fitting class");
+
+        // The free blocks are listed by size class, from the smallest class, and the most
+        // recently freed block first within a class
+        String expected = "(85 , 15) (20 , 30) (0 , 20) \n(50 , 10) (60 , 25) ";
+        assertExact(expected, memory.toString(), "Segregated state");
+
+        memory.free(addr4);
+        memory.defrag();
+        expected = "(60 , 40) (0 , 50) \n(50 , 10) ";
+        assertExact(expected, memory.toString(), "Segregated after defrag");
+    }
+
+    private static void testBuddyMemorySpace() {
+        BuddyMemorySpace memory = new BuddyMemorySpace(100);
+        assertString("(0 , 64) (64 , 32) (96 , 4)\n", memory.toString(), "Buddy initialization");
+
+        int addr1 = memory.malloc(10);
+        int addr2 = memory.malloc(16);
+        int addr3 = memory.malloc(30);
+        assertEqual(64, addr1, "Buddy first allocation");
+        assertEqual(80, addr2, "Buddy second allocation");
+        assertEqual(0, addr3, "Buddy third allocation");
+        assertEqual(-1, memory.malloc(40), "Buddy allocation failure");
+        assertEqual(-1, memory.malloc(0), "Buddy zero length allocation");
+        assertEqual(-1, memory.malloc(-5), "Buddy negative length allocation");
+        assertString("(32 , 32) (96 , 4)\n(0 , 32) (64 , 16) (80 , 16)\n", memory.toString(), "Buddy allocated state");
+        assertEqual(36, memory.getFreeWords(), "Buddy free words");
+        assertEqual(32, memory.getLargestFreeLength(), "Buddy largest free block");
+
+        memory.free(addr2);
+        memory.free(addr1);
+        assertString("(32 , 32) (64 , 32) (96 , 4)\n(0 , 32)\n", memory.toString(), "Buddy merged state");
+        memory.free(addr3);
+        assertString("(0 , 64) (64 , 32) (96 , 4)\n", memory.toString(), "Buddy fully freed");
+        assertEqual(100, memory.getFreeWords(), "Buddy free words when fully freed");
+        assertEqual(64, memory.getLargestFreeLength(), "Buddy largest free block when fully freed");
+    }
+
+    private static void testAddressOrderedFit() {
+        MemorySpace memory = new MemorySpace(100, AllocationPolicy.ADDRESS_ORDERED_FIT);
+        memory.malloc(20);
+        int addr2 = memory.malloc(20);
+        int addr3 = memory.malloc(20);
+        memory.free(addr2);
+        int addr4 = memory.malloc(10);
+        assertEqual(20, addr4, "Address ordered allocation");
+
+        memory.free(addr3);
+        assertExact("(30 , 70) \n(0 , 20) (20 , 10) ", memory.toString(), "Immediate coalescing");
+
+        memory.free(0);
+        memory.free(addr4);
+        assertExact("(0 , 100) \n", memory.toString(), "Coalescing with both neighbours");
+    }
+
+    private static void testAddressOrderedFitMatchesFirstFit() {
+        // A first-fit memory space that is defragmented after every free keeps its freeList
+        // sorted and merged, so it must place every block exactly like the address-ordered tree
+        MemorySpace list = new MemorySpace(1000);
+        MemorySpace tree = new MemorySpace(1000, AllocationPolicy.ADDRESS_ORDERED_FIT);
+        java.util.Random random = new java.util.Random(9);
+        java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (addresses.isEmpty() || random.nextInt(3) > 0) {
+                int length = 1 + random.nextInt(60);
+                int address = list.malloc(length);
+                assertEqual(address, tree.malloc(length), "Address ordered allocation " + i);
+                if (address != -1) {
+                    addresses.add(address);
+                }
+            } else {
+                int address = addresses.remove(random.nextInt(addresses.size()));
+                list.free(address);
+                list.defrag();
+                tree.free(address);
+            }
+        }
+        assertExact(list.toString(), tree.toString(), "Address ordered state");
+    }
+
+    private static void testSortedFirstFit() {
+        MemorySpace memory = new MemorySpace(100, AllocationPolicy.SORTED_FIRST_FIT);
+        int addr1 = memory.malloc(10);
+        int addr2 = memory.malloc(10);
+        int addr3 = memory.malloc(10);
+        memory.free(addr3);
+        memory.free(addr1);
+        memory.free(addr2);
+        // The free list must be in address order, not in the order of the frees
+        if (!memory.toString().equals("(0 , 10) (10 , 10) (20 , 10) (30 , 70) \n")) {
+            throw new AssertionError("Sorted free list: " + memory);
+        }
+        assertEqual(0, memory.malloc(5), "Sorted first fit takes the lowest address");
+        memory.defrag();
+        assertExact("(5 , 95) \n(0 , 5) ", memory.toString(), "Sorted defrag");
+
+        // Defragmented after every free, it must place every block like the address-ordered tree
+        MemorySpace sorted = new MemorySpace(1000, AllocationPolicy.SORTED_FIRST_FIT);
+        MemorySpace tree = new MemorySpace(1000, AllocationPolicy.ADDRESS_ORDERED_FIT);
+        java.util.Random random = new java.util.Random(21);
+        java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            if (addresses.isEmpty() || random.nextInt(3) > 0) {
+                int length = 1 + random.nextInt(60);
+                int address = sorted.malloc(length);
+                assertEqual(address, tree.malloc(length), "Sorted first fit allocation " + i);
+                if (address != -1) {
+                    addresses.add(address);
+                }
+            } else {
+                int address = addresses.remove(random.nextInt(addresses.size()));
+                sorted.free(address);
+                sorted.defrag();
+                tree.free(address);
+            }
+        }
+        assertExact(sorted.toString(), tree.toString(), "Sorted first fit state");
+    }
+
+    private static void testBlockSorter() {
+        // The sort must order the pairs like a stable comparison sort on the base addresses
+        java.util.Random random = new java.util.Random(22);
+        for (int bound : new int[] { 1, 100, 1 << 20, Integer.MAX_VALUE }) {
+            int size = 5000;
+            int[] baseAddresses = new int[size];
+            int[] lengths = new int[size];
+            long[] expected = new long[size];
+            for (int i = 0; i < size; i++) {
+                baseAddresses[i] = (bound == Integer.MAX_VALUE) ? random.nextInt() : random.nextInt(bound);
+                lengths[i] = i;
+                expected[i] = ((long) baseAddresses[i] << 32) | i;
+            }
+            java.util.Arrays.sort(expected);
+            BlockSorter.sortByBaseAddress(baseAddresses, lengths, size);
+            for (int i = 0; i < size; i++) {
+                if (baseAddresses[i] != (int) (expected[i] >> 32) || lengths[i] != (int) expected[i]) {
+                    throw new AssertionError("Radix sort with bound " + bound + " at " + i);
+                }
+            }
+        }
+        int[] single = { 7 };
+        BlockSorter.sortByBaseAddress(single, new int[] { 1 }, 1);
+        BlockSorter.sortByBaseAddress(new int[0], new int[0], 0);
+        assertEqual(7, single[0], "Radix sort of a single block");
+    }
+
+    private static void testParallelDefragMatchesDefrag() {
+        // Enough free blocks for several chunks, with runs of adjacent blocks across chunk boundaries
+        for (int seed = 0; seed < 3; seed++) {
+            MemorySpace sequential = new MemorySpace(200000);
+            MemorySpace parallel = new MemorySpace(200000);
+            java.util.Random random = new java.util.Random(seed);
+            java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+            for (int i = 0; i < 30000; i++) {
+                int length = 1 + random.nextInt(4);
+                int address = sequential.malloc(length);
+                parallel.malloc(length);
+                addresses.add(address);
+            }
+            java.util.Collections.shuffle(addresses, random);
+            for (int i = 0; i < addresses.size(); i++) {
+                if (random.nextInt(10) < 7) {
+                    sequential.free(addresses.get(i));
+                    parallel.free(addresses.get(i));
+                }
+            }
+            sequential.defrag();
+            parallel.parallelDefrag();
+            if (!sequential.toString().equals(parallel.toString())) {
+                throw new AssertionError("Parallel defrag differs from defrag with seed " + seed);
+            }
+            assertEqual(sequential.malloc(5), parallel.malloc(5), "Allocation after parallel defrag");
+        }
+        MemorySpace empty = new MemorySpace(10);
+        empty.malloc(10);
+        empty.parallelDefrag();
+        assertString("\n(0 , 10) ", empty.toString(), "Parallel defrag of an empty free list");
+    }
+
+    private static void testDefragStep() {
+        MemorySpace memory = new MemorySpace(100);
+        int addr1 = memory.malloc(10);
+        int addr2 = memory.malloc(10);
+        int addr3 = memory.malloc(10);
+        memory.free(addr3);
+        memory.free(addr1);
+        memory.free(addr2);
+        assertEqual(1, memory.defragStep(1000000) ? 1 : 0, "Small defrag finishes in one step");
+        assertString("(0 , 100) \n", memory.toString(), "Defrag step state");
+
+        // Steps interleaved with malloc and free, with a budget too small to finish, must end in
+        // the state that defrag leaves, for every list policy
+        AllocationPolicy[] policies = { AllocationPolicy.FIRST_FIT, AllocationPolicy.NEXT_FIT, AllocationPolicy.SORTED_FIRST_FIT };
+        for (AllocationPolicy policy : policies) {
+            MemorySpace stepped = new MemorySpace(20000, policy);
+            java.util.Random random = new java.util.Random(24);
+            java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+            int unfinished = 0;
+            for (int i = 0; i < 20000; i++) {
+                int operation = random.nextInt(10);
+                if (operation < 5 || addresses.isEmpty()) {
+                    int address = stepped.malloc(1 + random.nextInt(8));
+                    if (address != -1) {
+                        addresses.add(address);
+                    }
+                } else if (operation < 9) {
+                    stepped.free(addresses.remove(random.nextInt(addresses.size())));
+                } else if (!stepped.defragStep(0)) {
+                    unfinished++;
+                }
+            }
+            if (unfinished == 0) {
+                throw new AssertionError("Defrag steps always finished with " + policy);
+            }
+            while (!stepped.defragStep(1000000)) {
+            }
+            String state = stepped.toString();
+            stepped.defrag();
+            if (!state.equals(stepped.toString())) {
+                throw new AssertionError("Defrag steps with " + policy + ":\nExpected: " + stepped + "\nActual: " + state);
+            }
+            assertEqual(1, stepped.defragStep(0) ? 1 : 0, "Defragmented " + policy);
+        }
+
+        MemorySpace indexed = new MemorySpace(100, AllocationPolicy.BEST_FIT);
+        indexed.free(indexed.malloc(10));
+        assertEqual(1, indexed.defragStep(0) ? 1 : 0, "Index policies defragment in one step");
+    }
+
+    private static void testDefragPolicy() {
+        // By default, malloc fails when only adjacent free blocks could satisfy it
+        MemorySpace memory = new MemorySpace(100);
+        int[] addresses = new int[10];
+        for (int i = 0; i < 10; i++) {
+            addresses[i] = memory.malloc(10);
+        }
+        memory.free(addresses[3]);
+        memory.free(addresses[4]);
+        assertEqual(-1, memory.malloc(20), "No defrag on failure by default");
+        assertEqual(0, memory.getFailureDefrags(), "No failure defrags by default");
+
+        MemorySpace retrying = new MemorySpace(100, AllocationPolicy.FIRST_FIT, DefragPolicy.ON_FAILURE);
+        for (int i = 0; i < 10; i++) {
+            addresses[i] = retrying.malloc(10);
+        }
+        retrying.free(addresses[3]);
+        retrying.free(addresses[4]);
+        assertEqual(30, retrying.malloc(20), "Defrag and retry on failure");
+        assertEqual(1, retrying.getFailureDefrags(), "Failure defrags");
+        assertEqual(-1, retrying.malloc(10), "Failure when no words are free");
+        assertEqual(1, retrying.getFailureDefrags(), "No failure defrag when the length exceeds the free words");
+
+        MemorySpace interval = new MemorySpace(100, AllocationPolicy.FIRST_FIT, new DefragPolicy(false, 1, 3));
+        for (int i = 0; i < 10; i++) {
+            addresses[i] = interval.malloc(10);
+        }
+        interval.free(addresses[0]);
+        interval.free(addresses[1]);
+        assertEqual(0, interval.getIntervalDefrags(), "No interval defrag before the interval");
+        interval.free(addresses[2]);
+        assertEqual(1, interval.getIntervalDefrags(), "Interval defrag");
+        assertString("(0 , 30) \n(30 , 10) (40 , 10) (50 , 10) (60 , 10) (70 , 10) (80 , 10) (90 , 10) ",
+                interval.toString(), "State after interval defrag");
+        interval.defrag();
+        interval.free(addresses[5]);
+        interval.free(addresses[7]);
+        assertEqual(1, interval.getIntervalDefrags(), "A defrag restarts the interval");
+        assertEqual(1, interval.defragStep(1000000) ? 1 : 0, "Defrag step finishes");
+        interval.free(addresses[8]);
+        assertEqual(1, interval.getIntervalDefrags(), "A finished defrag step restarts the interval");
+
+        MemorySpace threshold = new MemorySpace(100, AllocationPolicy.FIRST_FIT, new DefragPolicy(false, 0.6, 0));
+        for (int i = 0; i < 10; i++) {
+            addresses[i] = threshold.malloc(10);
+        }
+        threshold.free(addresses[0]);
+        threshold.free(addresses[1]);
+        assertEqual(0, threshold.getThresholdDefrags(), "No threshold defrag below the threshold");
+        threshold.free(addresses[5]);
+        assertEqual(1, threshold.getThresholdDefrags(), "Threshold defrag");
+        assertString("(0 , 20) (50 , 10) \n(20 , 10) (30 , 10) (40 , 10) (60 , 10) (70 , 10) (80 , 10) (90 , 10) ",
+                threshold.toString(), "State after threshold defrag");
+
+        // Freeing every other block leaves free blocks that defrag cannot merge, so the
+        // fragmentation stays above the threshold; the rule must fire once, not on every free
+        for (AllocationPolicy policy : new AllocationPolicy[] { AllocationPolicy.FIRST_FIT, AllocationPolicy.BEST_FIT }) {
+            MemorySpace checkerboard = new MemorySpace(1000, policy, new DefragPolicy(false, 0.5, 0));
+            int[] blocks = new int[100];
+            for (int i = 0; i < 100; i++) {
+                blocks[i] = checkerboard.malloc(10);
+            }
+            for (int i = 0; i < 100; i += 2) {
+                checkerboard.free(blocks[i]);
+            }
+            assertEqual(1, checkerboard.getThresholdDefrags(), "Checkerboard threshold defrags with " + policy);
+
+            // Once the fragmentation falls back below the threshold, the rule fires again
+            for (int i = 1; i < 100; i += 2) {
+                checkerboard.free(blocks[i]);
+            }
+            checkerboard.defrag();
+            for (int i = 0; i < 100; i++) {
+                blocks[i] = checkerboard.malloc(10);
+            }
+            for (int i = 0; i < 100; i += 2) {
+                checkerboard.free(blocks[i]);
+            }
+            assertEqual(2, checkerboard.getThresholdDefrags(), "Re-armed threshold defrags with " + policy);
+        }
+    }
+
+    private static void testFreeWordsCount() {
+        // The running count of free words and the longest free block must match a scan of
+        // the free blocks, for every policy
+        for (AllocationPolicy policy : AllocationPolicy.values()) {
+            MemorySpace memory = new MemorySpace(3000, policy, DefragPolicy.ON_FAILURE);
+            java.util.Random random = new java.util.Random(25);
+            java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                if (addresses.isEmpty() || random.nextInt(5) < 3) {
+                    int address = memory.malloc(1 + random.nextInt(60));
+                    if (address != -1) {
+                        addresses.add(address);
+                    }
+                } else {
+                    memory.free(addresses.remove(random.nextInt(addresses.size())));
+                }
+                if (i % 50 == 0) {
+                    int words = 0;
+                    int largest = 0;
+                    for (String block : memory.toString().split("\n")[0].split("\\)")) {
+                        if (block.contains(",")) {
+                            int length = Integer.parseInt(block.substring(block.indexOf(',') + 1).trim());
+                            words += length;
+                            largest = Math.max(largest, length);
+                        }
+                    }
+                    assertEqual(words, memory.getFreeWords(), "Free words with " + policy + " at " + i);
+                    assertEqual(largest, memory.getLargestFreeLength(), "Largest free block with " + policy + " at " + i);
+                }
+            }
+        }
+    }
+
+    private static void testBestFit() {
+        MemorySpace memory = new MemorySpace(100, AllocationPolicy.BEST_FIT);
+        int addr1 = memory.malloc(30);
+        memory.malloc(10);
+        int addr3 = memory.malloc(15);
+        memory.malloc(10);
+        memory.free(addr1);
+        memory.free(addr3);
+
+        int addr5 = memory.malloc(12);
+        assertEqual(40, addr5, "Best fit takes the shortest fitting block");
+        int addr6 = memory.malloc(30);
+        assertEqual(0, addr6, "Best fit takes an exact fit");
+
+        memory.free(addr5);
+        memory.defrag();
+        assertExact("(40 , 15) (65 , 35) \n(30 , 10) (55 , 10) (0 , 30) ", memory.toString(), "Best fit after defrag");
+    }
+
+    private static void testTlsfMemorySpace() {
+        TlsfMemorySpace memory = new TlsfMemorySpace(100);
+        int addr1 = memory.malloc(20);
+        int addr2 = memory.malloc(20);
+        int addr3 = memory.malloc(20);
+        assertEqual(0, addr1, "TLSF first allocation");
+        assertEqual(20, addr2, "TLSF second allocation");
+        assertEqual(40, addr3, "TLSF third allocation");
+        assertEqual(-1, memory.malloc(41), "TLSF allocation failure");
+
+        memory.free(addr1);
+        memory.free(addr3);
+        assertExact("(0 , 20) (40 , 60) \n(20 , 20) ", memory.toString(), "TLSF immediate coalescing");
+        assertEqual(25, (int) Math.round(memory.fragmentation() * 100), "TLSF fragmentation");
+        assertEqual(80, memory.getFreeWords(), "TLSF free words");
+        assertEqual(60, memory.getLargestFreeLength(), "TLSF largest free block");
+
+        memory.free(addr2);
+        assertExact("(0 , 100) \n", memory.toString(), "TLSF fully freed");
+        assertEqual(0, (int) Math.round(memory.fragmentation() * 100), "TLSF no fragmentation");
+    }
+
+    private static void testSlabAllocator() {
+        MemorySpace memory = new MemorySpace(100);
+        SlabAllocator slabs = new SlabAllocator(memory, new int[] {4}, 3);
+        int addr1 = slabs.malloc(4);
+        int addr2 = slabs.malloc(4);
+        int addr3 = slabs.malloc(10);
+        int addr4 = slabs.malloc(4);
+        int addr5 = slabs.malloc(4);
+        assertEqual(0, addr1, "First slot");
+        assertEqual(4, addr2, "Second slot");
+        assertEqual(12, addr3, "Block that is not a slot");
+        assertEqual(8, addr4, "Third slot");
+        assertEqual(22, addr5, "Slot of a second slab");
+        assertString("(34 , 66)\n(0 , 12) (12 , 10) (22 , 12)\n", slabs.toString(), "Slab state");
+
+        slabs.free(addr2);
+        assertEqual(4, slabs.malloc(4), "Reused slot");
+        slabs.free(addr5);
+        assertString("(34 , 66) (22 , 12)\n(0 , 12) (12 , 10)\n", slabs.toString(), "Empty slab freed");
+        slabs.free(addr3);
+        assertString("(34 , 66) (22 , 12) (12 , 10)\n(0 , 12)\n", slabs.toString(), "Block freed");
+    }
+
+    private static void testSlabAllocatorDoubleFree() {
+        MemorySpace memory = new MemorySpace(100);
+        SlabAllocator slabs = new SlabAllocator(memory, new int[] {4}, 3);
+        int addr1 = slabs.malloc(4);
+        int addr2 = slabs.malloc(4);
+        slabs.free(addr1);
+        slabs.free(addr1);
+        slabs.free(addr1 + 8);
+        memory.defrag();
+        assertString("(12 , 88)\n(0 , 12)\n", slabs.toString(), "Double free keeps the slab");
+        assertEqual(12, slabs.malloc(50), "Allocation does not overlap the live slot");
+        slabs.free(addr2);
+        slabs.free(addr2);
+        assertString("(62 , 38) (0 , 12)\n(12 , 50)\n", slabs.toString(), "Slab freed once it is empty");
+
+        try {
+            new SlabAllocator(memory, new int[] {0}, 3);
+            throw new AssertionError("Slot length 0 was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            new SlabAllocator(memory, new int[] {1 << 20}, 1 << 12);
+            throw new AssertionError("Slab length overflow was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static void testArrayMemorySpaceMatchesMemorySpace() {
+        MemorySpace objects = new MemorySpace(1000);
+        ArrayMemorySpace arrays = new ArrayMemorySpace(1000, 16);
+        java.util.Random random = new java.util.Random(10);
+        java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int operation = random.nextInt(20);
+            if (operation == 0) {
+                objects.defrag();
+                arrays.defrag();
+            } else if (addresses.isEmpty() || operation < 13) {
+                int length = 1 + random.nextInt(60);
+                int address = objects.malloc(length);
+                assertEqual(address, arrays.malloc(length), "Array allocation " + i);
+                if (address != -1) {
+                    addresses.add(address);
+                }
+            } else {
+                int address = addresses.remove(random.nextInt(addresses.size()));
+                objects.free(address);
+                arrays.free(address);
+            }
+            if (!objects.toString().equals(arrays.toString())) {
+                throw new AssertionError("Array state " + i + ":\nExpected: " + objects + "\nActual: " + arrays);
+            }
+        }
+    }
+
+    private static void testArrayMemorySpaceAllocationFree() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return; // This JVM cannot measure allocated bytes
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        long thread = Thread.currentThread().getId();
+
+        ArrayMemorySpace memory = new ArrayMemorySpace(4000, 4000);
+        int[] addresses = new int[32];
+        for (int round = 0; round < 5; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 100000; i++) {
+                int slot = i & 31;
+                if (i >= 32) {
+                    memory.free(addresses[slot]);
+                }
+                addresses[slot] = memory.malloc(1 + (i * 7) % 50);
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            // The first rounds warm up the JIT; the last round must not allocate at all
+            if (round == 4 && allocated > 0) {
+                throw new AssertionError("Steady state malloc/free allocated " + allocated + " bytes");
+            }
+        }
+    }
+
+    private static void testBlockArrayListMatchesLinkedList() {
+        LinkedList nodes = new LinkedList();
+        BlockArrayList arrays = new BlockArrayList(4);
+        java.util.Random random = new java.util.Random(12);
+        for (int i = 0; i < 1000; i++) {
+            MemoryBlock block = new MemoryBlock(random.nextInt(50), 1 + random.nextInt(5));
+            int operation = random.nextInt(6);
+            if (operation == 0) {
+                nodes.addFirst(block);
+                arrays.addFirst(block);
+            } else if (operation == 1) {
+                nodes.addLast(block);
+                arrays.addLast(block);
+            } else if (operation == 2) {
+                int index = random.nextInt(nodes.getSize() + 1);
+                nodes.add(index, block);
+                arrays.add(index, block);
+            } else if (operation == 3 && nodes.getSize() > 0) {
+                int index = random.nextInt(nodes.getSize());
+                assertString(nodes.getBlock(index).toString(), arrays.getBlock(index).toString(), "Array list getBlock");
+                nodes.remove(index);
+                arrays.remove(index);
+            } else if (operation == 4 && nodes.indexOf(block) != -1) {
+                assertEqual(nodes.indexOf(block), arrays.indexOf(block), "Array list indexOf");
+                nodes.remove(block);
+                arrays.remove(block);
+            }
+            assertEqual(nodes.getSize(), arrays.getSize(), "Array list size");
+            if (!nodes.toString().equals(arrays.toString())) {
+                throw new AssertionError("Array list state " + i + ":\nExpected: " + nodes + "\nActual: " + arrays);
+            }
+        }
+    }
+
+    private static void testLinkedListNodePool() {
+        LinkedList list = new LinkedList(2);
+        for (int i = 0; i < 4; i++) {
+            list.addLast(new MemoryBlock(i * 10, 10));
+        }
+        Node removed = list.getFirst();
+        list.remove(removed);
+        list.remove(list.getLast());
+        list.remove(list.getFirst()); // The pool is full, so this node is dropped
+        list.addFirst(new MemoryBlock(0, 5));
+        assertEqual(1, (int) list.getPoolHits(), "Pool hits");
+        assertEqual(4, (int) list.getPoolMisses(), "Pool misses");
+        list.add(1, new MemoryBlock(50, 5));
+        list.addLast(new MemoryBlock(60, 5));
+        assertEqual(2, (int) list.getPoolHits(), "Pool hits after reuse");
+        assertEqual(5, (int) list.getPoolMisses(), "Pool misses after the pool ran out");
+        assertString("(0 , 5) (50 , 5) (20 , 10) (60 , 5)", list.toString(), "Pooled list state");
+        assertEqual(1, removed == list.getNode(1) ? 1 : 0, "Removed node reused");
+    }
+
+    private static void testPersistentBlockListSnapshots() {
+        // Every version must keep the contents it had when it was created
+        LinkedList nodes = new LinkedList();
+        PersistentBlockList versions = PersistentBlockList.empty();
+        java.util.List<PersistentBlockList> snapshots = new java.util.ArrayList<>();
+        java.util.List<String> expected = new java.util.ArrayList<>();
+        java.util.Random random = new java.util.Random(20);
+        for (int i = 0; i < 2000; i++) {
+            MemoryBlock block = new MemoryBlock(random.nextInt(1000), 1 + random.nextInt(5));
+            int operation = random.nextInt(6);
+            if (operation == 0) {
+                nodes.addFirst(block);
+                versions = versions.addFirst(block);
+            } else if (operation == 1) {
+                nodes.addLast(block);
+                versions = versions.addLast(block);
+            } else if (operation == 2) {
+                int index = random.nextInt(nodes.getSize() + 1);
+                nodes.add(index, block);
+                versions = versions.add(index, block);
+            } else if (operation == 3 && nodes.getSize() > 0) {
+                int index = random.nextInt(nodes.getSize());
+                nodes.remove(index);
+                versions = versions.remove(index);
+            } else if (operation == 4 && nodes.getSize() > 0) {
+                int index = random.nextInt(nodes.getSize());
+                nodes.getNode(index).block = block;
+                versions = versions.set(index, block);
+            } else if (nodes.getSize() > 0) {
+                int index = random.nextInt(nodes.getSize());
+                assertString(nodes.getBlock(index).toString(), versions.getBlock(index).toString(), "Persistent list getBlock");
+            }
+            assertEqual(nodes.getSize(), versions.getSize(), "Persistent list size");
+            if (i % 100 == 0) {
+                snapshots.add(versions);
+                expected.add(nodes.toString());
+            }
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (!expected.get(i).equals(snapshots.get(i).toString())) {
+                throw new AssertionError("Persistent list snapshot " + i + ":\nExpected: " + expected.get(i) + "\nActual: " + snapshots.get(i));
+            }
+        }
+        PersistentBlockList copy = PersistentBlockList.copyOf(nodes);
+        if (!nodes.toString().equals(copy.toString())) {
+            throw new AssertionError("Persistent list copyOf");
+        }
+        for (int i = 0; i < nodes.getSize(); i += 7) {
+            assertString(nodes.getBlock(i).toString(), copy.getBlock(i).toString(), "Persistent list copyOf getBlock");
+        }
+        // A copy is a treap like any other version, so it can be modified
+        nodes.add(nodes.getSize() / 2, new MemoryBlock(1, 1));
+        copy = copy.add(copy.getSize() / 2, new MemoryBlock(1, 1));
+        nodes.remove(0);
+        copy = copy.remove(0);
+        assertString(nodes.toString(), copy.toString(), "Persistent list modified copy");
+        assertEqual(0, PersistentBlockList.copyOf(new LinkedList()).getSize(), "Persistent list empty copy");
+        // Changing a block after adding it must not change the list
+        MemoryBlock block = new MemoryBlock(5, 5);
+        PersistentBlockList list = PersistentBlockList.empty().addLast(block);
+        block.length = 1;
+        assertEqual(5, list.getBlock(0).length, "Persistent list copies blocks");
+    }
+
+    private static void testLinkedListForeignNode() {
+        LinkedList l1 = new LinkedList();
+        LinkedList l2 = new LinkedList(4);
+        l1.addLast(new MemoryBlock(0, 1));
+        l1.addLast(new MemoryBlock(1, 1));
+        l2.addLast(new MemoryBlock(4, 1));
+        l2.addLast(new MemoryBlock(5, 1));
+        Node foreign = l2.getLast();
+        assertThrows(() -> l1.remove(foreign), "Removing a node of another list");
+        assertThrows(() -> l1.splitAt(foreign), "Splitting at a node of another list");
+        assertEqual(2, l1.getSize(), "Size after removing a foreign node");
+        assertString("(0 , 1) (1 , 1) ", l1.toString(), "List after removing a foreign node");
+        assertString("(4 , 1) (5 , 1) ", l2.toString(), "Other list after removing a foreign node");
+
+        l2.remove(foreign);
+        assertThrows(() -> l2.remove(foreign), "Removing a recycled node");
+        l2.remove(l2.getFirst());
+        assertEqual(0, l2.getSize(), "Size after removing a recycled node");
+
+        // Nodes moved by appendAll belong to the receiving list
+        l2.addLast(new MemoryBlock(5, 1));
+        Node moved = l2.getFirst();
+        l1.appendAll(l2);
+        assertThrows(() -> l2.remove(moved), "Removing an appended node from its old list");
+        l1.remove(moved);
+        LinkedList tail = l1.splitAt(l1.getLast());
+        assertThrows(() -> l1.remove(tail.getFirst()), "Removing a split node from its old list");
+        assertString("(0 , 1) ", l1.toString(), "List after appendAll and splitAt");
+        assertString("(1 , 1) ", tail.toString(), "Tail after appendAll and splitAt");
+    }
+
+    private static void testIndexableSkipListMatchesLinkedList() {
+        LinkedList nodes = new LinkedList();
+        IndexableSkipList skips = new IndexableSkipList();
+        java.util.Random random = new java.util.Random(14);
+        for (int i = 0; i < 3000; i++) {
+            MemoryBlock block = new MemoryBlock(random.nextInt(1000), 1 + random.nextInt(5));
+            int operation = random.nextInt(7);
+            if (operation == 0) {
+                nodes.addFirst(block);
+                skips.addFirst(block);
+            } else if (operation == 1) {
+                nodes.addLast(block);
+                skips.addLast(block);
+            } else if (operation <= 3) {
+                int index = random.nextInt(nodes.getSize() + 1);
+                nodes.add(index, block);
+                skips.add(index, block);
+            } else if (operation == 4 && nodes.getSize() > 0) {
+                int index = random.nextInt(nodes.getSize());
+                nodes.remove(index);
+                skips.remove(index);
+            } else if (operation == 5 && nodes.getSize() > 0) {
+                MemoryBlock existing = nodes.getBlock(random.nextInt(nodes.getSize()));
+                assertEqual(nodes.indexOf(existing), skips.indexOf(existing), "Skip list indexOf");
+                nodes.remove(existing);
+                skips.remove(existing);
+            } else if (nodes.getSize() > 0) {
+                int index = random.nextInt(nodes.getSize());
+                if (nodes.getBlock(index) != skips.getBlock(index)) {
+                    throw new AssertionError("Skip list getBlock " + index);
+                }
+            }
+            assertEqual(nodes.getSize(), skips.getSize(), "Skip list size");
+        }
+        if (!nodes.toString().equals(skips.toString())) {
+            throw new AssertionError("Skip list state:\nExpected: " + nodes + "\nActual: " + skips);
+        }
+    }
+
+    private static void testUnrolledLinkedListMatchesLinkedList() {
+        LinkedList nodes = new LinkedList();
+        UnrolledLinkedList chunks = new UnrolledLinkedList();
+        java.util.Random random = new java.util.Random(15);
+        for (int i = 0; i < 5000; i++) {
+            MemoryBlock block = new MemoryBlock(random.nextInt(1000), 1 + random.nextInt(100));
+            int operation = random.nextInt(8);
+            if (operation == 0) {
+                nodes.addFirst(block);
+                chunks.addFirst(block);
+            } else if (operation <= 2) {
+                nodes.addLast(block);
+                chunks.addLast(block);
+            } else if (operation <= 4) {
+                int index = random.nextInt(nodes.getSize() + 1);
+                nodes.add(index, block);
+                chunks.add(index, block);
+            } else if (operation == 5 && nodes.getSize() > 0) {
+                int index = random.nextInt(nodes.getSize());
+                nodes.remove(index);
+                chunks.remove(index);
+            } else if (operation == 6 && nodes.getSize() > 0) {
+                MemoryBlock existing = nodes.getBlock(random.nextInt(nodes.getSize()));
+                nodes.remove(existing);
+                chunks.remove(existing);
+            } else {
+                int expected = -1;
+                for (int index = 0; index < nodes.getSize() && expected == -1; index++) {
+                    if (nodes.getBlock(index).length >= block.length) {
+                        expected = index;
+                    }
+                }
+                assertEqual(expected, chunks.firstFit(block.length), "Unrolled list first fit");
+            }
+            assertEqual(nodes.getSize(), chunks.getSize(), "Unrolled list size");
+        }
+        if (!nodes.toString().equals(chunks.toString())) {
+            throw new AssertionError("Unrolled list state:\nExpected: " + nodes + "\nActual: " + chunks);
+        }
+    }
+
+    private static void testUnrolledFirstFitMatchesFirstFit() {
+        MemorySpace list = new MemorySpace(5000);
+        MemorySpace chunks = new MemorySpace(5000, AllocationPolicy.UNROLLED_FIRST_FIT);
+        java.util.Random random = new java.util.Random(15);
+        java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(100);
+            if (operation == 0) {
+                list.defrag();
+                chunks.defrag();
+            } else if (addresses.isEmpty() || operation < 60) {
+                int length = 1 + random.nextInt(60);
+                int address = list.malloc(length);
+                assertEqual(address, chunks.malloc(length), "Unrolled first fit allocation " + i);
+                if (address != -1) {
+                    addresses.add(address);
+                }
+            } else {
+                int address = addresses.remove(random.nextInt(addresses.size()));
+                list.free(address);
+                chunks.free(address);
+            }
+            if (i % 100 == 0) {
+                assertString(list.toString(), chunks.toString(), "Unrolled first fit state " + i);
+            }
+        }
+        assertString(list.toString(), chunks.toString(), "Unrolled first fit state");
+    }
+
+    private static void testListIteratorModification() {
+        LinkedList list = new LinkedList();
+        for (int i = 0; i < 4; i++) {
+            list.addLast(new MemoryBlock(i * 10, 10));
+        }
+        LinkedListIterator iterator = list.iterator();
+        iterator.insertAfter(new MemoryBlock(100, 1)); // At the beginning of the list
+        iterator.next();
+        iterator.remove();
+        iterator.next();
+        iterator.set(new MemoryBlock(110, 2));
+        iterator.insertBefore(new MemoryBlock(120, 3));
+        iterator.insertAfter(new MemoryBlock(130, 4));
+        assertEqual(20, iterator.next().baseAddress, "Inserted blocks are skipped");
+        assertString("(100 , 1) (120 , 3) (110 , 2) (130 , 4) (20 , 10) (30 , 10)", list.toString(), "Modified list");
+        assertEqual(6, list.getSize(), "Modified list size");
+        assertEqual(30, list.getLast().block.baseAddress, "Last node");
+
+        list.addFirst(new MemoryBlock(200, 1));
+        try {
+            iterator.next();
+            throw new AssertionError("Concurrent modification not detected");
+        } catch (java.util.ConcurrentModificationException e) {
+            // Expected
+        }
+    }
+
+    private static void testLinkedListStreams() {
+        LinkedList list = new LinkedList();
+        long expectedWords = 0;
+        for (int i = 0; i < 10000; i++) {
+            list.addLast(new MemoryBlock(i * 100, 1 + i % 97));
+            expectedWords += 1 + i % 97;
+        }
+        assertEqual((int) expectedWords, (int) list.parallelStream().mapToLong(block -> block.length).sum(), "Parallel total words");
+        assertEqual(97, list.parallelStream().mapToInt(block -> block.length).max().getAsInt(), "Parallel largest block");
+        assertEqual(10000, (int) list.parallelStream().count(), "Parallel count");
+        java.util.List<MemoryBlock> ordered = list.parallelStream().collect(java.util.stream.Collectors.toList());
+        assertEqual(9999 * 100, ordered.get(9999).baseAddress, "Parallel stream order");
+        assertEqual(0, (int) new LinkedList().stream().count(), "Empty stream");
+    }
+
+    private static void testLinkedListSplice() {
+        LinkedList list = new LinkedList();
+        list.addAll(new MemoryBlock[] { new MemoryBlock(0, 1), new MemoryBlock(1, 1), new MemoryBlock(2, 1) });
+        LinkedList other = new LinkedList();
+        other.addAll(new MemoryBlock[] { new MemoryBlock(3, 1), new MemoryBlock(4, 1) });
+        list.appendAll(other);
+        assertEqual(5, list.getSize(), "Size after appendAll");
+        assertEqual(0, other.getSize(), "Appended list is emptied");
+        assertString("(0 , 1) (1 , 1) (2 , 1) (3 , 1) (4 , 1) ", list.toString(), "List after appendAll");
+        other.addLast(new MemoryBlock(5, 1));
+        assertString("(5 , 1) ", other.toString(), "Appended list is still usable");
+
+        LinkedList tail = list.splitAt(list.getNode(2));
+        assertEqual(2, list.getSize(), "Size of the head after splitAt");
+        assertEqual(3, tail.getSize(), "Size of the tail after splitAt");
+        assertString("(0 , 1) (1 , 1) ", list.toString(), "Head after splitAt");
+        assertString("(2 , 1) (3 , 1) (4 , 1) ", tail.toString(), "Tail after splitAt");
+        // The prev links must be consistent, so removing the ends in constant time still works
+        tail.remove(tail.getNode(2));
+        list.remove(list.getNode(1));
+        list.appendAll(tail);
+        assertString("(0 , 1) (2 , 1) (3 , 1) ", list.toString(), "List after rejoining");
+        assertEqual(3, list.getBlock(2).baseAddress, "Last block after rejoining");
+
+        LinkedList whole = list.splitAt(list.getNode(0));
+        assertEqual(0, list.getSize(), "Splitting at the first node empties the list");
+        assertEqual(3, whole.getSize(), "Splitting at the first node moves every node");
+    }
+
+    private static void testMemorySpaceSnapshots() {
+        MemorySpace memory = new MemorySpace(100);
+        int addr1 = memory.malloc(20);
+        int addr2 = memory.malloc(30);
+        memory.malloc(10);
+        memory.free(addr2);
+        MemorySnapshot before = memory.snapshot();
+        assertExact("(20 , 30) (60 , 40) \n(0 , 20) (50 , 10) ", before.toString(), "Snapshot state");
+        memory.free(addr1);
+        // The free ranges are merged, although the freeList is not
+        assertExact("(0 , 50) (60 , 40) \n(50 , 10) ", memory.snapshot().toString(), "Snapshot after free");
+        assertExact("(20 , 30) (60 , 40) \n(0 , 20) (50 , 10) ", before.toString(), "Old snapshot unchanged");
+
+        // A reader checks every snapshot that it gets while the memory space keeps changing:
+        // the blocks and the free ranges must never overlap, and must cover the whole space
+        int size = 10000;
+        MemorySpace changing = new MemorySpace(size, AllocationPolicy.FIRST_FIT, new DefragPolicy(true, 1.0, 50));
+        java.util.concurrent.atomic.AtomicBoolean done = new java.util.concurrent.atomic.AtomicBoolean();
+        String[] failure = new String[1];
+        int[] snapshotsRead = new int[1];
+        Thread reader = new Thread(() -> {
+            while (!done.get() && failure[0] == null) {
+                MemorySnapshot snapshot = changing.snapshot();
+                failure[0] = checkSnapshot(snapshot, size);
+                snapshotsRead[0]++;
+            }
+        });
+        reader.start();
+        java.util.Random random = new java.util.Random(17);
+        java.util.ArrayList<Integer> addresses = new java.util.ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            if (addresses.isEmpty() || random.nextInt(3) > 0) {
+                int address = changing.malloc(1 + random.nextInt(60));
+                if (address != -1) {
+                    addresses.add(address);
+                }
+            } else {
+                changing.free(addresses.remove(random.nextInt(addresses.size())));
+            }
+        }
+        done.set(true);
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            throw new AssertionError("Interrupted");
+        }
+        if (failure[0] != null) {
+            throw new AssertionError("Inconsistent snapshot: " + failure[0]);
+        }
+        if (snapshotsRead[0] == 0) {
+            throw new AssertionError("No snapshot was read");
+        }
+        MemorySnapshot last = changing.snapshot();
+        assertEqual(addresses.size(), last.getAllocatedBlocks().getSize(), "Snapshot allocated blocks");
+        java.util.Collections.sort(addresses);
+        for (int i = 0; i < addresses.size(); i++) {
+            assertEqual(addresses.get(i), last.getAllocatedBlocks().getBlock(i).baseAddress, "Snapshot block " + i);
+        }
+    }
+
+    /**
+     * Returns why the given snapshot of a memory space of the given size is inconsistent,
+     * or null if it is consistent.
+     */
+    private static String checkSnapshot(MemorySnapshot snapshot, int size) {
+        ListIterator allocated = snapshot.getAllocatedBlocks().iterator();
+        ListIterator free = snapshot.getFreeRanges().iterator();
+        MemoryBlock nextAllocated = allocated.hasNext() ? allocated.next() : null;
+        MemoryBlock nextFree = free.hasNext() ? free.next() : null;
+        int address = 0;
+        boolean previousFree = false;
+        while (nextAllocated != null || nextFree != null) {
+            if (nextFree != null && nextFree.baseAddress == address) {
+                if (previousFree) {
+                    return "adjacent free ranges at " + address;
+                }
+                address += nextFree.length;
+                previousFree = true;
+                nextFree = free.hasNext() ? free.next() : null;
+            } else if (nextAllocated != null && nextAllocated.baseAddress == address) {
+                address += nextAllocated.length;
+                previousFree = false;
+                nextAllocated = allocated.hasNext() ? allocated.next() : null;
+            } else {
+                return "no block at " + address;
+            }
+        }
+        return address == size ? null : "the blocks end at " + address;
+    }
+
+    private static void testConcurrentBlockListStress() {
+        // Each thread adds its own blocks and removes every other one, while the other threads
+        // do the same, so the list must end up with exactly the blocks that were kept
+        ConcurrentBlockList list = new ConcurrentBlockList();
+        int threadCount = 4;
+        int blocksPerThread = 2000;
+        Thread[] threads = new Thread[threadCount];
+        boolean[] failed = new boolean[1];
+        for (int t = 0; t < threadCount; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < blocksPerThread; i++) {
+                    list.addLast(new MemoryBlock(id * blocksPerThread + i, 1));
+                    if (i % 2 == 1 && !list.remove(new MemoryBlock(id * blocksPerThread + i - 1, 1))) {
+                        failed[0] = true;
+                    }
+                    if (list.indexOf(new MemoryBlock(id * blocksPerThread + i, 1)) == -1) {
+                        failed[0] = true;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted");
+            }
+        }
+        if (failed[0]) {
+            throw new AssertionError("Concurrent list lost a block");
+        }
+        assertEqual(threadCount * blocksPerThread / 2, list.getSize(), "Concurrent list size");
+        boolean[] seen = new boolean[threadCount * blocksPerThread];
+        int count = 0;
+        ListIterator iterator = list.iterator();
+        while (iterator.hasNext()) {
+            int address = iterator.next().baseAddress;
+            assertEqual(1, address % 2, "Concurrent list kept block");
+            assertEqual(0, seen[address] ? 1 : 0, "Concurrent list duplicate block");
+            seen[address] = true;
+            count++;
+        }
+        assertEqual(threadCount * blocksPerThread / 2, count, "Concurrent list iteration");
+    }
+
+    private static void assertThrows(Runnable action, String message) {
+        try {
+            action.run();
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        throw new AssertionError(message + " did not throw IllegalArgumentException");
+    }
+
     private static void assertEqual(int expected, int actual, String message) {
         if (expected != actual) {
             throw new AssertionError(message + ": Expected " + expected + " but got " + actual);
         }
     }
 
+    private static void assertExact(String expected, String actual, String message) {
+        // Unlike assertString, the order of the blocks in each list is compared too
+        if (!expected.equals(actual)) {
+            throw new AssertionError(message + ":\nExpected: " + expected + "\nActual: " + actual);
+        }
+    }
+
     private static void assertString(String expected, String actual, String message) {
         // Normalize and split the strings into sets of blocks
         String[] expectedBlocks = normalizeString(expected).split("\\)\\(");
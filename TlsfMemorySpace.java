@@ -0,0 +1,312 @@
+/**
+ * Represents a managed memory space that allocates blocks with the Two-Level Segregated
+ * Fit (TLSF) algorithm. Free blocks are binned by a first level, which is the power of two
+ * of their length, and a second level, which divides each power-of-two range into
+ * SL_COUNT equal parts. A bitmap of non-empty first levels and a bitmap of non-empty
+ * second levels per first level let malloc find a fitting bin with a few bit operations,
+ * and every block knows its physical neighbours, so free merges a block with them
+ * immediately. Both malloc and free therefore take O(1) time in the worst case, as long as
+ * the number of allocated blocks does not exceed the number that the memory space was
+ * constructed for; beyond it, the index of the allocated blocks grows, and the bound is
+ * only amortized. The bound counts operations, not the cost of creating a Block when a
+ * free block is split.
+ */
+public class TlsfMemorySpace {
+
+    private static final int SL_LOG2 = 4;                // log2 of the number of second levels
+    private static final int SL_COUNT = 1 << SL_LOG2;    // number of second levels per first level
+    private static final int FL_COUNT = 32 - SL_LOG2;    // number of first levels
+
+    /**
+     * Represents a block of the memory space, free or allocated.
+     */
+    private static class Block {
+        MemoryBlock block;    // the base address and length of this block
+        boolean free;         // true if this block is free
+        Block prevPhysical;   // the block that ends where this block begins, or null
+        Block nextPhysical;   // the block that begins where this block ends, or null
+        Block prevFree;       // the previous free block in the bin of this block
+        Block nextFree;       // the next free block in the bin of this block
+
+        Block(int baseAddress, int length) {
+            block = new MemoryBlock(baseAddress, length);
+        }
+    }
+
+    private final Block[][] bins;   // bins[fl][sl] is the first free block of the bin, or null
+    private int firstLevelMap;      // bit fl is set if some bin of first level fl is not empty
+    private final int[] secondLevelMaps; // bit sl of secondLevelMaps[fl] is set if bins[fl][sl] is not empty
+
+    private final Block firstBlock; // the block at address 0
+    private int freeWords;          // the total length of the free blocks
+
+    // The allocated blocks, by base address
+    private final AddressIndex<Block> allocatedBlocks;
+
+    /**
+     * Constructs a new TLSF memory space of a given maximal size, with room for 1024
+     * allocated blocks before the index of the allocated blocks has to grow.
+     * 
+     * @param maxSize
+     *            the size of the memory space to be managed
+     */
+    public TlsfMemorySpace(int maxSize) {
+        this(maxSize, 1024);
+    }
+
+    /**
+     * Constructs a new TLSF memory space of a given maximal size, with room for the given
+     * number of allocated blocks before the index of the allocated blocks has to grow.
+     * Since every allocated block is at least one word long, an expectedBlocks of maxSize
+     * means that the index never grows.
+     * 
+     * @param maxSize
+     *            the size of the memory space to be managed
+     * @param expectedBlocks
+     *            the expected maximal number of allocated blocks
+     */
+    public TlsfMemorySpace(int maxSize, int expectedBlocks) {
+        bins = new Block[FL_COUNT][SL_COUNT];
+        secondLevelMaps = new int[FL_COUNT];
+        allocatedBlocks = new AddressIndex<>(expectedBlocks);
+        firstBlock = new Block(0, maxSize);
+        if (maxSize > 0) {
+            insertFree(firstBlock);
+            freeWords = maxSize;
+        }
+    }
+
+    /**
+     * Returns the first level of a block of the given length. Lengths below SL_COUNT all
+     * have first level 0, and their second level is the length itself.
+     */
+    private static int firstLevelOf(int length) {
+        return length < SL_COUNT ? 0 : 31 - Integer.numberOfLeadingZeros(length) - SL_LOG2 + 1;
+    }
+
+    /**
+     * Returns the second level of a block of the given length.
+     */
+    private static int secondLevelOf(int length) {
+        if (length < SL_COUNT) {
+            return length;
+        }
+        int log2 = 31 - Integer.numberOfLeadingZeros(length);
+        return (length >>> (log2 - SL_LOG2)) - SL_COUNT;
+    }
+
+    /**
+     * Rounds the given length up to the smallest length of the next bin, so that every
+     * block in the bin of the rounded length, or in a higher bin, is long enough.
+     */
+    private static int roundUp(int length) {
+        if (length < SL_COUNT) {
+            return length;
+        }
+        int log2 = 31 - Integer.numberOfLeadingZeros(length);
+        long rounded = (long) length + (1 << (log2 - SL_LOG2)) - 1;
+        return rounded > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) rounded;
+    }
+
+    private void insertFree(Block block) {
+        int fl = firstLevelOf(block.block.length);
+        int sl = secondLevelOf(block.block.length);
+        block.free = true;
+        block.prevFree = null;
+        block.nextFree = bins[fl][sl];
+        if (bins[fl][sl] != null) {
+            bins[fl][sl].prevFree = block;
+        }
+        bins[fl][sl] = block;
+        firstLevelMap |= 1 << fl;
+        secondLevelMaps[fl] |= 1 << sl;
+    }
+
+    private void removeFree(Block block) {
+        int fl = firstLevelOf(block.block.length);
+        int sl = secondLevelOf(block.block.length);
+        if (block.prevFree != null) {
+            block.prevFree.nextFree = block.nextFree;
+        } else {
+            bins[fl][sl] = block.nextFree;
+        }
+        if (block.nextFree != null) {
+            block.nextFree.prevFree = block.prevFree;
+        }
+        block.prevFree = null;
+        block.nextFree = null;
+        block.free = false;
+        if (bins[fl][sl] == null) {
+            secondLevelMaps[fl] &= ~(1 << sl);
+            if (secondLevelMaps[fl] == 0) {
+                firstLevelMap &= ~(1 << fl);
+            }
+        }
+    }
+
+    /**
+     * Returns a free block whose length is at least the given length, or null if there is none.
+     * The block is taken from the first non-empty bin at or above the bin of the rounded
+     * length. If there is no such bin, the first block of the bin of the length itself is
+     * checked as well.
+     */
+    private Block findFree(int length) {
+        int rounded = roundUp(length);
+        int fl = firstLevelOf(rounded);
+        int sl = secondLevelOf(rounded);
+        int slMap = fl < FL_COUNT ? secondLevelMaps[fl] & (-1 << sl) : 0;
+        if (slMap == 0) {
+            int flMap = fl + 1 < FL_COUNT ? firstLevelMap & (-1 << (fl + 1)) : 0;
+            if (flMap != 0) {
+                fl = Integer.numberOfTrailingZeros(flMap);
+                slMap = secondLevelMaps[fl];
+            }
+        }
+        if (slMap != 0) {
+            return bins[fl][Integer.numberOfTrailingZeros(slMap)];
+        }
+        Block candidate = bins[firstLevelOf(length)][secondLevelOf(length)];
+        return candidate != null && candidate.block.length >= length ? candidate : null;
+    }
+
+    /**
+     * Allocates a memory block of a requested length (in words). A fitting free block is
+     * found through the bitmaps, and whatever remains of it after the allocation is split
+     * off and returned to its bin.
+     * 
+     * @param length
+     *        the length (in words) of the memory block that has to be allocated
+     * @return the base address of the allocated block, or -1 if unable to allocate
+     */
+    public int malloc(int length) {
+        if (length <= 0) {
+            return -1;
+        }
+        Block block = findFree(length);
+        if (block == null) {
+            return -1; // Allocation failed
+        }
+        removeFree(block);
+        if (block.block.length > length) {
+            Block remainder = new Block(block.block.baseAddress + length, block.block.length - length);
+            remainder.prevPhysical = block;
+            remainder.nextPhysical = block.nextPhysical;
+            if (block.nextPhysical != null) {
+                block.nextPhysical.prevPhysical = remainder;
+            }
+            block.nextPhysical = remainder;
+            block.block.length = length;
+            insertFree(remainder);
+        }
+        allocatedBlocks.put(block.block.baseAddress, block);
+        freeWords -= length;
+        return block.block.baseAddress;
+    }
+
+    /**
+     * Frees the memory block whose base address equals the given address, and merges it
+     * with its physical neighbours if they are free.
+     * 
+     * @param address
+     *            the base address of the block to free
+     */
+    public void free(int address) {
+        if (allocatedBlocks.getSize() == 0) {
+            throw new IllegalArgumentException("no blocks are allocated");
+        }
+        Block block = allocatedBlocks.remove(address);
+        if (block == null) {
+            return; // Treat invalid address as a successful operation (no exception thrown)
+        }
+        freeWords += block.block.length;
+        Block next = block.nextPhysical;
+        if (next != null && next.free) {
+            removeFree(next);
+            absorb(block, next);
+        }
+        Block prev = block.prevPhysical;
+        if (prev != null && prev.free) {
+            removeFree(prev);
+            absorb(prev, block);
+            block = prev;
+        }
+        insertFree(block);
+    }
+
+    /**
+     * Merges the given block into the block that physically precedes it.
+     */
+    private void absorb(Block block, Block next) {
+        block.block.length += next.block.length;
+        block.nextPhysical = next.nextPhysical;
+        if (next.nextPhysical != null) {
+            next.nextPhysical.prevPhysical = block;
+        }
+    }
+
+    /**
+     * Performs defragmentation of this memory space. Since free blocks are merged with
+     * their physical neighbours as soon as they are freed, there is nothing left to merge.
+     */
+    public void defrag() {
+    }
+
+    /**
+     * Gets the total length of the free blocks of this memory space, which malloc and
+     * free keep count of, in O(1) time.
+     * 
+     * @return the number of free words
+     */
+    public int getFreeWords() {
+        return freeWords;
+    }
+
+    /**
+     * Gets the length of the longest free block of this memory space. The highest non-empty
+     * bin is found through the bitmaps, and only its blocks are compared, since every block
+     * in a lower bin is shorter than every block in it.
+     * 
+     * @return the length of the longest free block, or 0 if there are no free blocks
+     */
+    public int getLargestFreeLength() {
+        if (firstLevelMap == 0) {
+            return 0;
+        }
+        int fl = 31 - Integer.numberOfLeadingZeros(firstLevelMap);
+        int sl = 31 - Integer.numberOfLeadingZeros(secondLevelMaps[fl]);
+        int largest = 0;
+        for (Block block = bins[fl][sl]; block != null; block = block.nextFree) {
+            largest = Math.max(largest, block.block.length);
+        }
+        return largest;
+    }
+
+    /**
+     * Measures the external fragmentation of this memory space, as the part of the free
+     * words that lies outside the longest free block. This takes time proportional to the
+     * number of blocks in the highest non-empty bin, rather than to the number of blocks.
+     * 
+     * @return a value between 0 (no fragmentation) and 1
+     */
+    public double fragmentation() {
+        return freeWords == 0 ? 0 : 1 - (double) getLargestFreeLength() / freeWords;
+    }
+
+    /**
+     * A textual representation of the free blocks and the allocated blocks of this memory
+     * space, each sorted by base address, for debugging purposes.
+     */
+    @Override
+    public String toString() {
+        String free = "";
+        String allocated = "";
+        for (Block block = firstBlock; block != null; block = block.nextPhysical) {
+            if (block.free) {
+                free = free + block.block + " ";
+            } else if (block.block.length > 0) {
+                allocated = allocated + block.block + " ";
+            }
+        }
+        return free + "\n" + allocated;
+    }
+}
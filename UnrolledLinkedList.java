@@ -0,0 +1,363 @@
+/**
+ * Represents a list of memory blocks, implemented as an unrolled linked list: each node
+ * (a chunk) holds the base addresses and lengths of up to CHUNK_CAPACITY consecutive
+ * blocks in two small int arrays. A scan of the list, like the first-fit scan of malloc,
+ * therefore reads contiguous memory and follows one pointer per chunk rather than two
+ * pointers per block.
+ * The list offers the same operations as LinkedList, except for the ones that return
+ * nodes. Its getBlock and iterator create MemoryBlock copies of the stored blocks, so a
+ * MemorySpace with the UNROLLED_FIRST_FIT policy allocates through takeFirstFit, which
+ * updates the found block in place.
+ */
+public class UnrolledLinkedList {
+
+    /** The maximal number of blocks in a chunk */
+    public static final int CHUNK_CAPACITY = 32;
+
+    /**
+     * Represents a chunk of the list, holding consecutive blocks.
+     */
+    private static class Chunk {
+        final int[] baseAddresses = new int[CHUNK_CAPACITY];
+        final int[] lengths = new int[CHUNK_CAPACITY];
+        int count;    // number of blocks in this chunk
+        Chunk next;   // the next chunk in the list
+        Chunk prev;   // the previous chunk in the list
+    }
+
+    private Chunk first; // the first chunk of this list
+    private Chunk last;  // the last chunk of this list
+    private int size;    // number of blocks in this list
+
+    /**
+     * Constructs a new list.
+     */
+    public UnrolledLinkedList() {
+        first = null;
+        last = null;
+        size = 0;
+    }
+
+    /**
+     * Removes all the blocks of this list.
+     */
+    public void clear() {
+        first = null;
+        last = null;
+        size = 0;
+    }
+
+    /**
+     * Gets the current size of the list
+     * @return The size of the list.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Finds the index of the first block whose length is at least the given length.
+     * @param length the requested length, in words
+     * @return the index of the first fitting block, or -1 if no block is long enough
+     */
+    public int firstFit(int length) {
+        int index = 0;
+        for (Chunk chunk = first; chunk != null; chunk = chunk.next) {
+            int[] lengths = chunk.lengths;
+            for (int i = 0; i < chunk.count; i++) {
+                if (lengths[i] >= length) {
+                    return index + i;
+                }
+            }
+            index += chunk.count;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the length of the longest block of this list, by a scan of the lengths arrays.
+     * @return the length of the longest block, or 0 if the list is empty
+     */
+    public int largestLength() {
+        int largest = 0;
+        for (Chunk chunk = first; chunk != null; chunk = chunk.next) {
+            for (int i = 0; i < chunk.count; i++) {
+                largest = Math.max(largest, chunk.lengths[i]);
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Allocates the given number of words from the first block whose length is at least
+     * the given length, in the same scan that finds it: the block is shortened from its
+     * beginning, in place, or removed if its length equals the given length.
+     * @param length the requested length, in words
+     * @return the base address of the allocated words, or -1 if no block is long enough
+     */
+    public int takeFirstFit(int length) {
+        for (Chunk chunk = first; chunk != null; chunk = chunk.next) {
+            int[] lengths = chunk.lengths;
+            for (int i = 0; i < chunk.count; i++) {
+                if (lengths[i] >= length) {
+                    int baseAddress = chunk.baseAddresses[i];
+                    if (lengths[i] == length) {
+                        remove(chunk, i);
+                    } else {
+                        chunk.baseAddresses[i] += length;
+                        lengths[i] -= length;
+                    }
+                    return baseAddress;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets a copy of the memory block located at the given index in this list.
+     * @param index the index of the block
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     * @return a new memory block with the base address and length of the block at the given index
+     */
+    public MemoryBlock getBlock(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        Chunk chunk = first;
+        while (index >= chunk.count) {
+            index -= chunk.count;
+            chunk = chunk.next;
+        }
+        return new MemoryBlock(chunk.baseAddresses[index], chunk.lengths[index]);
+    }
+
+    /**
+     * Sets the base address and the length of the block at the given index, in place.
+     * @param index the index of the block
+     * @param block the memory block whose base address and length are copied
+     * @throws IllegalArgumentException if index is negative or greater than or equal to size
+     */
+    public void set(int index, MemoryBlock block) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        Chunk chunk = first;
+        while (index >= chunk.count) {
+            index -= chunk.count;
+            chunk = chunk.next;
+        }
+        chunk.baseAddresses[index] = block.baseAddress;
+        chunk.lengths[index] = block.length;
+    }
+
+    /**
+     * Finds the index of the first block that equals the given memory block.
+     * @param block the memory block to locate
+     * @return the index of the block, or -1 if not found
+     */
+    public int indexOf(MemoryBlock block) {
+        int index = 0;
+        for (Chunk chunk = first; chunk != null; chunk = chunk.next) {
+            for (int i = 0; i < chunk.count; i++) {
+                if (chunk.baseAddresses[i] == block.baseAddress && chunk.lengths[i] == block.length) {
+                    return index + i;
+                }
+            }
+            index += chunk.count;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the specified memory block to the beginning of the list.
+     * @param block the memory block to add
+     */
+    public void addFirst(MemoryBlock block) {
+        add(0, block);
+    }
+
+    /**
+     * Adds the specified memory block to the end of the list.
+     * @param block the memory block to add
+     */
+    public void addLast(MemoryBlock block) {
+        add(size, block);
+    }
+
+    /**
+     * Inserts the specified memory block at the specified index. If the chunk that should
+     * hold the block is full, it is split in two halves first.
+     * @param index the position to insert the block
+     * @param block the memory block to insert
+     */
+    public void add(int index, MemoryBlock block) {
+        if (index < 0 || index > size) {
+            throw new IllegalArgumentException("Index out of bounds");
+        }
+        Chunk chunk;
+        int offset;
+        if (index == size) {
+            // Appends to the last chunk, or to a new chunk if it is full
+            if (last == null || last.count == CHUNK_CAPACITY) {
+                linkAfter(last, new Chunk());
+            }
+            chunk = last;
+            offset = chunk.count;
+        } else {
+            chunk = first;
+            offset = index;
+            while (offset >= chunk.count) {
+                offset -= chunk.count;
+                chunk = chunk.next;
+            }
+            if (chunk.count == CHUNK_CAPACITY) {
+                Chunk half = split(chunk);
+                if (offset > chunk.count) {
+                    offset -= chunk.count;
+                    chunk = half;
+                }
+            }
+        }
+        System.arraycopy(chunk.baseAddresses, offset, chunk.baseAddresses, offset + 1, chunk.count - offset);
+        System.arraycopy(chunk.lengths, offset, chunk.lengths, offset + 1, chunk.count - offset);
+        chunk.baseAddresses[offset] = block.baseAddress;
+        chunk.lengths[offset] = block.length;
+        chunk.count++;
+        size++;
+    }
+
+    /**
+     * Moves the upper half of the given full chunk into a new chunk that follows it.
+     * @return the new chunk
+     */
+    private Chunk split(Chunk chunk) {
+        Chunk half = new Chunk();
+        int keep = CHUNK_CAPACITY / 2;
+        half.count = chunk.count - keep;
+        System.arraycopy(chunk.baseAddresses, keep, half.baseAddresses, 0, half.count);
+        System.arraycopy(chunk.lengths, keep, half.lengths, 0, half.count);
+        chunk.count = keep;
+        linkAfter(chunk, half);
+        return half;
+    }
+
+    /**
+     * Links the given chunk after the given chunk, or at the beginning if it is null.
+     */
+    private void linkAfter(Chunk chunk, Chunk added) {
+        added.prev = chunk;
+        added.next = chunk == null ? first : chunk.next;
+        if (added.next == null) {
+            last = added;
+        } else {
+            added.next.prev = added;
+        }
+        if (chunk == null) {
+            first = added;
+        } else {
+            chunk.next = added;
+        }
+    }
+
+    private void unlink(Chunk chunk) {
+        if (chunk.prev == null) {
+            first = chunk.next;
+        } else {
+            chunk.prev.next = chunk.next;
+        }
+        if (chunk.next == null) {
+            last = chunk.prev;
+        } else {
+            chunk.next.prev = chunk.prev;
+        }
+    }
+
+    /**
+     * Removes the block at the specified index from the list. A chunk that becomes empty
+     * is unlinked, and a chunk that becomes less than half full is merged with the
+     * following chunk if they fit together.
+     * @param index the index of the block to remove
+     */
+    public void remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        Chunk chunk = first;
+        while (index >= chunk.count) {
+            index -= chunk.count;
+            chunk = chunk.next;
+        }
+        remove(chunk, index);
+    }
+
+    /**
+     * Removes the block at the given offset of the given chunk, as described in remove.
+     */
+    private void remove(Chunk chunk, int offset) {
+        chunk.count--;
+        System.arraycopy(chunk.baseAddresses, offset + 1, chunk.baseAddresses, offset, chunk.count - offset);
+        System.arraycopy(chunk.lengths, offset + 1, chunk.lengths, offset, chunk.count - offset);
+        size--;
+        if (chunk.count == 0) {
+            unlink(chunk);
+        } else if (chunk.count < CHUNK_CAPACITY / 2 && chunk.next != null
+                && chunk.count + chunk.next.count <= CHUNK_CAPACITY) {
+            Chunk next = chunk.next;
+            System.arraycopy(next.baseAddresses, 0, chunk.baseAddresses, chunk.count, next.count);
+            System.arraycopy(next.lengths, 0, chunk.lengths, chunk.count, next.count);
+            chunk.count += next.count;
+            unlink(next);
+        }
+    }
+
+    /**
+     * Removes the first block that equals the specified memory block from the list.
+     * @param block the memory block to remove
+     */
+    public void remove(MemoryBlock block) {
+        int index = indexOf(block);
+        if (index == -1) {
+            throw new IllegalArgumentException("index must be between 0 and size");
+        }
+        remove(index);
+    }
+
+    /**
+     * A textual representation of this list, in the same format as LinkedList.toString.
+     * @return a string representing the list
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        for (Chunk chunk = first; chunk != null; chunk = chunk.next) {
+            for (int i = 0; i < chunk.count; i++) {
+                s.append('(').append(chunk.baseAddresses[i]).append(" , ").append(chunk.lengths[i]).append(") ");
+            }
+        }
+        return s.toString();
+    }
+
+    /**
+     * Returns an iterator over copies of the blocks in this list, in proper sequence.
+     * @return a ListIterator over the blocks in this list
+     */
+    public ListIterator iterator() {
+        return new ListIterator((Node) null) {
+            private Chunk chunk = first;
+            private int offset = 0;
+
+            public boolean hasNext() {
+                return chunk != null;
+            }
+
+            public MemoryBlock next() {
+                MemoryBlock block = new MemoryBlock(chunk.baseAddresses[offset], chunk.lengths[offset]);
+                if (++offset == chunk.count) {
+                    chunk = chunk.next;
+                    offset = 0;
+                }
+                return block;
+            }
+        };
+    }
+}